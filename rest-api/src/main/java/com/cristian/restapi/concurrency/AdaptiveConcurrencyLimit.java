@@ -0,0 +1,126 @@
+package com.cristian.restapi.concurrency;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounds the requests in flight, with a limit that follows latency: every completed request compares its latency
+ * with the long-term average and scales the limit by their ratio, clamped to {@code [0.5, 1]}, plus a headroom of
+ * {@code sqrt(limit)}. While latency stays at its usual level the limit grows; once requests queue up somewhere
+ * downstream and take longer, it shrinks before the threads and connections they hold run out.
+ * <p>
+ * The limit does not grow while less than half of it is in use, so a quiet period cannot inflate it.
+ */
+public class AdaptiveConcurrencyLimit {
+
+    /**
+     * Number of samples the long-term latency averages over.
+     */
+    private static final int LONG_WINDOW = 600;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double smoothing;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+
+    private double limit;
+    private double longLatencyNanos;
+    private int inFlight;
+
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double smoothing) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Limits must satisfy 1 <= min-limit <= max-limit");
+        }
+        if (smoothing <= 0 || smoothing > 1) throw new IllegalArgumentException("Smoothing must be in (0, 1]");
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.smoothing = smoothing;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    /**
+     * Takes a slot, waiting up to {@code maxWaitNanos} for one to be released.
+     *
+     * @return {@code false} if no slot was free in time
+     */
+    public boolean tryAcquire(long maxWaitNanos) throws InterruptedException {
+        lock.lock();
+        try {
+            long remaining = maxWaitNanos;
+            while (inFlight >= (int) limit) {
+                if (remaining <= 0) return false;
+                remaining = released.awaitNanos(remaining);
+            }
+            inFlight++;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Frees a slot taken by {@link #tryAcquire(long)} and adjusts the limit by the latency of its request.
+     */
+    public void release(long latencyNanos) {
+        lock.lock();
+        try {
+            adjust(Math.max(1, latencyNanos));
+            inFlight--;
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Frees a slot taken by {@link #tryAcquire(long)} without sampling its latency, for requests whose duration
+     * says nothing about the load, such as streamed exports.
+     */
+    public void release() {
+        lock.lock();
+        try {
+            inFlight--;
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void adjust(long latencyNanos) {
+        if (longLatencyNanos == 0) {
+            longLatencyNanos = latencyNanos;
+        } else {
+            longLatencyNanos += (latencyNanos - longLatencyNanos) / LONG_WINDOW;
+        }
+        // After a long slow period the average is slow to come down; let it catch up so the limit can recover.
+        if (longLatencyNanos / latencyNanos > 2) {
+            longLatencyNanos *= 0.95;
+        }
+        if (inFlight < limit / 2) return;
+
+        double gradient = Math.max(0.5, Math.min(1.0, longLatencyNanos / latencyNanos));
+        double target = limit * gradient + Math.sqrt(limit);
+        double next = limit * (1 - smoothing) + target * smoothing;
+        limit = Math.max(minLimit, Math.min(maxLimit, next));
+    }
+}
@@ -0,0 +1,195 @@
+package com.cristian.restapi.concurrency;
+
+import com.cristian.restapi.exception.ExceptionResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounds the requests in flight per route group with an {@link AdaptiveConcurrencyLimit}, so one slow group,
+ * file uploads for instance, cannot take every request thread and pooled connection from the others. A request
+ * that finds its group full waits up to the group's {@code max-wait} for a slot and is then answered with 503 and
+ * {@code Retry-After}, without reaching security or the controllers. Requests matching no group are not limited.
+ * Groups are matched in order, so narrower groups must come before the ones that include them.
+ * <p>
+ * Requests that go async, streamed exports and downloads, keep their slot until they complete but leave the
+ * limit alone: their duration depends on the client and the data, not on how loaded the server is.
+ * <p>
+ * Per group, publishes {@code http.concurrency.limit}, {@code http.concurrency.in-flight},
+ * {@code http.concurrency.queue.time} and {@code http.concurrency.rejected}.
+ */
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final List<Group> groups;
+    private final ObjectMapper objectMapper;
+    private final long retryAfterSeconds;
+    private final LongSupplier clock;
+
+    public ConcurrencyLimitFilter(List<Group> groups, ObjectMapper objectMapper, long retryAfterSeconds,
+                                  MeterRegistry meterRegistry, LongSupplier clock) {
+        this.groups = List.copyOf(groups);
+        this.objectMapper = objectMapper;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.clock = clock;
+        this.groups.forEach(group -> group.register(meterRegistry));
+    }
+
+    public List<Group> getGroups() {
+        return groups;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Group group = groupOf(request);
+        if (group == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        long queuedAt = clock.getAsLong();
+        boolean acquired;
+        try {
+            acquired = group.limit.tryAcquire(group.maxWaitNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        long startedAt = clock.getAsLong();
+        if (!acquired) {
+            group.rejected.increment();
+            reject(request, response);
+            return;
+        }
+        group.queueTime.record(startedAt - queuedAt, TimeUnit.NANOSECONDS);
+
+        var permit = new Permit(group.limit, startedAt);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(permit);
+            } else {
+                permit.release();
+            }
+        }
+    }
+
+    private Group groupOf(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (Group group : groups) {
+            for (String pattern : group.patterns) {
+                if (pathMatcher.match(pattern, path)) return group;
+            }
+        }
+        return null;
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new ExceptionResponse(new Date(),
+                "The server is busy, please try again later.", "uri=" + request.getRequestURI()));
+    }
+
+    public static class Group {
+
+        private final String name;
+        private final List<String> patterns;
+        private final AdaptiveConcurrencyLimit limit;
+        private final long maxWaitNanos;
+        private Timer queueTime;
+        private Counter rejected;
+
+        public Group(String name, List<String> patterns, AdaptiveConcurrencyLimit limit, long maxWaitNanos) {
+            this.name = name;
+            this.patterns = List.copyOf(patterns);
+            this.limit = limit;
+            this.maxWaitNanos = maxWaitNanos;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public AdaptiveConcurrencyLimit getLimit() {
+            return limit;
+        }
+
+        private void register(MeterRegistry meterRegistry) {
+            Gauge.builder("http.concurrency.limit", limit, AdaptiveConcurrencyLimit::getLimit)
+                    .tag("group", name)
+                    .register(meterRegistry);
+            Gauge.builder("http.concurrency.in-flight", limit, AdaptiveConcurrencyLimit::getInFlight)
+                    .tag("group", name)
+                    .register(meterRegistry);
+            queueTime = Timer.builder("http.concurrency.queue.time")
+                    .description("Time requests waited for a slot")
+                    .tag("group", name)
+                    .register(meterRegistry);
+            rejected = meterRegistry.counter("http.concurrency.rejected", "group", name);
+        }
+    }
+
+    private class Permit implements AsyncListener {
+
+        private final AdaptiveConcurrencyLimit limit;
+        private final long startedAt;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        Permit(AdaptiveConcurrencyLimit limit, long startedAt) {
+            this.limit = limit;
+            this.startedAt = startedAt;
+        }
+
+        void release() {
+            if (released.compareAndSet(false, true)) limit.release(clock.getAsLong() - startedAt);
+        }
+
+        void releaseUnsampled() {
+            if (released.compareAndSet(false, true)) limit.release();
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            releaseUnsampled();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            releaseUnsampled();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            releaseUnsampled();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
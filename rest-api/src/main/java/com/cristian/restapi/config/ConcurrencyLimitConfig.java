@@ -0,0 +1,120 @@
+package com.cristian.restapi.config;
+
+import com.cristian.restapi.concurrency.AdaptiveConcurrencyLimit;
+import com.cristian.restapi.concurrency.ConcurrencyLimitFilter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Registers the {@link ConcurrencyLimitFilter} for the route groups listed under {@code concurrency-limit.groups},
+ * ahead of Spring Security so that a rejected request costs no token validation.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "concurrency-limit")
+@ConditionalOnProperty(prefix = "concurrency-limit", name = "enabled", havingValue = "true")
+public class ConcurrencyLimitConfig {
+
+    private long retryAfterSeconds = 1;
+    private Map<String, Group> groups = new LinkedHashMap<>();
+
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(ObjectMapper objectMapper,
+                                                                                 MeterRegistry meterRegistry) {
+        List<ConcurrencyLimitFilter.Group> limited = new ArrayList<>();
+        groups.forEach((name, group) -> limited.add(new ConcurrencyLimitFilter.Group(name, group.getPatterns(),
+                new AdaptiveConcurrencyLimit(group.getInitialLimit(), group.getMinLimit(), group.getMaxLimit(),
+                        group.getSmoothing()),
+                group.getMaxWait().toNanos())));
+
+        var registration = new FilterRegistrationBean<>(
+                new ConcurrencyLimitFilter(limited, objectMapper, retryAfterSeconds, meterRegistry, System::nanoTime));
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 1);
+        return registration;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    public void setRetryAfterSeconds(long retryAfterSeconds) {
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public Map<String, Group> getGroups() {
+        return groups;
+    }
+
+    public void setGroups(Map<String, Group> groups) {
+        this.groups = groups;
+    }
+
+    public static class Group {
+
+        private List<String> patterns = new ArrayList<>();
+        private int initialLimit = 20;
+        private int minLimit = 4;
+        private int maxLimit = 100;
+        private double smoothing = 0.2;
+        private Duration maxWait = Duration.ofMillis(50);
+
+        public List<String> getPatterns() {
+            return patterns;
+        }
+
+        public void setPatterns(List<String> patterns) {
+            this.patterns = patterns;
+        }
+
+        public int getInitialLimit() {
+            return initialLimit;
+        }
+
+        public void setInitialLimit(int initialLimit) {
+            this.initialLimit = initialLimit;
+        }
+
+        public int getMinLimit() {
+            return minLimit;
+        }
+
+        public void setMinLimit(int minLimit) {
+            this.minLimit = minLimit;
+        }
+
+        public int getMaxLimit() {
+            return maxLimit;
+        }
+
+        public void setMaxLimit(int maxLimit) {
+            this.maxLimit = maxLimit;
+        }
+
+        public double getSmoothing() {
+            return smoothing;
+        }
+
+        public void setSmoothing(double smoothing) {
+            this.smoothing = smoothing;
+        }
+
+        public Duration getMaxWait() {
+            return maxWait;
+        }
+
+        public void setMaxWait(Duration maxWait) {
+            this.maxWait = maxWait;
+        }
+    }
+}
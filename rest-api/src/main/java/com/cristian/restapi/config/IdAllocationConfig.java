@@ -0,0 +1,32 @@
+package com.cristian.restapi.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+/**
+ * With {@code id-allocation.mode: pooled}, person and book ids come from the pooled table generator of
+ * {@code META-INF/pooled-ids.orm.xml} instead of {@code AUTO_INCREMENT}, so Hibernate can send their inserts in
+ * JDBC batches. Each block of ids costs a row lock on {@code id_generator} in a separate transaction, which is
+ * only worth it for bulk loads; the default {@code identity} mode keeps one insert per statement.
+ * <p>
+ * Switching modes keeps existing ids: {@code afterMigrate.sql} moves {@code id_generator} above the largest id on
+ * every start, and InnoDB moves {@code AUTO_INCREMENT} above any id inserted explicitly. Ids of a block an
+ * instance did not use are skipped. Instances must not run different modes at the same time, as an
+ * {@code AUTO_INCREMENT} insert may take an id from a block reserved by a pooled one.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "id-allocation", name = "mode", havingValue = "pooled")
+public class IdAllocationConfig {
+
+    static final String POOLED_IDS_MAPPING = "META-INF/pooled-ids.orm.xml";
+
+    @Bean
+    public HibernatePropertiesCustomizer pooledIdAllocation() {
+        return properties -> properties.put(AvailableSettings.ORM_XML_FILES, List.of(POOLED_IDS_MAPPING));
+    }
+}
@@ -0,0 +1,170 @@
+package com.cristian.restapi.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Sends the connections of read-only transactions to a replica, picked at random in proportion to its weight,
+ * and every other connection to the primary.
+ * <p>
+ * The choice is made when the connection is requested, so this must sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}: transaction managers ask for the
+ * connection before the transaction is marked read-only, and the proxy only asks for it at the first statement.
+ * <p>
+ * Each replica is checked every {@code healthCheckInterval}; one that fails a check or a connection attempt gets no
+ * more connections until a check passes again, and the connection is asked of another replica. Without a healthy
+ * replica, reads go to the primary.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    static final String PRIMARY = "primary";
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private final Logger logger = Logger.getLogger(ReplicaRoutingDataSource.class.getName());
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final ScheduledExecutorService healthChecker;
+
+    public ReplicaRoutingDataSource(DataSource primary, List<Replica> replicas, Duration healthCheckInterval) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        this.replicas.forEach(replica -> targets.put(replica.getName(), replica.getDataSource()));
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+
+        this.healthChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-health-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMillis = healthCheckInterval.toMillis();
+        healthChecker.scheduleWithFixedDelay(this::checkReplicas, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public List<Replica> getReplicas() {
+        return replicas;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) return PRIMARY;
+        Replica replica = chooseReplica();
+        return replica == null ? PRIMARY : replica.getName();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) return primary.getConnection();
+        for (Replica replica = chooseReplica(); replica != null; replica = chooseReplica()) {
+            try {
+                return replica.getDataSource().getConnection();
+            } catch (SQLException e) {
+                markHealthy(replica, false);
+            }
+        }
+        return primary.getConnection();
+    }
+
+    /**
+     * Validates a connection of every replica now, instead of waiting for the next scheduled check.
+     */
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            boolean healthy;
+            try (Connection connection = replica.getDataSource().getConnection()) {
+                healthy = connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+            } catch (SQLException e) {
+                healthy = false;
+            }
+            markHealthy(replica, healthy);
+        }
+    }
+
+    private Replica chooseReplica() {
+        int totalWeight = 0;
+        for (Replica replica : replicas) {
+            if (replica.isHealthy()) totalWeight += replica.getWeight();
+        }
+        if (totalWeight == 0) return null;
+        int point = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (Replica replica : replicas) {
+            if (!replica.isHealthy()) continue;
+            point -= replica.getWeight();
+            if (point < 0) return replica;
+        }
+        return null;
+    }
+
+    private void markHealthy(Replica replica, boolean healthy) {
+        if (replica.healthy != healthy) {
+            logger.warning("Replica " + replica.getName() + (healthy ? " is back, routing reads to it" : " is down, routing its reads elsewhere"));
+            replica.healthy = healthy;
+        }
+    }
+
+    /**
+     * Stops the health checks and closes the replica pools; the primary is left to its owner.
+     */
+    @Override
+    public void close() {
+        healthChecker.shutdownNow();
+        for (Replica replica : replicas) {
+            if (replica.getDataSource() instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    logger.warning("Could not close replica " + replica.getName() + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    public static class Replica {
+
+        private final String name;
+        private final DataSource dataSource;
+        private final int weight;
+        private volatile boolean healthy = true;
+
+        public Replica(String name, DataSource dataSource, int weight) {
+            if (weight < 1) throw new IllegalArgumentException("The weight of replica " + name + " must be at least 1");
+            this.name = name;
+            this.dataSource = dataSource;
+            this.weight = weight;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public DataSource getDataSource() {
+            return dataSource;
+        }
+
+        public int getWeight() {
+            return weight;
+        }
+
+        public boolean isHealthy() {
+            return healthy;
+        }
+    }
+}
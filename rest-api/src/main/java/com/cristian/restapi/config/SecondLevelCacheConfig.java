@@ -0,0 +1,96 @@
+package com.cristian.restapi.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.logging.Logger;
+
+/**
+ * Caffeine-backed JCache regions for the Hibernate second-level and query caches. Each region listed under
+ * {@code hibernate-cache.regions} gets its own size and TTL; Hibernate evicts entries itself on every write
+ * through the persistence context or a JPQL bulk statement. Hit and miss counts per region are published by
+ * Hibernate statistics as {@code hibernate.second.level.cache.requests}.
+ * <p>
+ * Users are left out on purpose: {@link com.cristian.restapi.service.UserService} caches them, and callers that
+ * change a user or a permission evict it there, which also drops the authentications cached from it.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "hibernate-cache")
+public class SecondLevelCacheConfig {
+
+    /**
+     * Records when each table was last written, to invalidate cached queries. Entries must outlive every
+     * cached query result, so this region is never bounded.
+     */
+    static final String TIMESTAMPS_REGION = "default-update-timestamps-region";
+
+    private final Logger logger = Logger.getLogger(SecondLevelCacheConfig.class.getName());
+
+    private Map<String, Region> regions = new LinkedHashMap<>();
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager() {
+        // A manager of its own rather than the provider default, which is shared by every context in the JVM.
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("hibernate-" + System.identityHashCode(this)), getClass().getClassLoader());
+        regions.forEach((name, region) -> {
+            logger.info("Creating cache region " + name + " (maximum size " + region.getMaximumSize() + ", ttl " + region.getTtl() + ")");
+            cacheManager.createCache(name, new CaffeineConfiguration<>()
+                    .setMaximumSize(OptionalLong.of(region.getMaximumSize()))
+                    .setExpireAfterWrite(OptionalLong.of(region.getTtl().toNanos()))
+                    .setStoreByValue(false)
+                    .setStatisticsEnabled(true));
+        });
+        if (cacheManager.getCache(TIMESTAMPS_REGION) == null) {
+            cacheManager.createCache(TIMESTAMPS_REGION, new CaffeineConfiguration<>().setStoreByValue(false));
+        }
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+
+    public Map<String, Region> getRegions() {
+        return regions;
+    }
+
+    public void setRegions(Map<String, Region> regions) {
+        this.regions = regions;
+    }
+
+    public static class Region {
+
+        private long maximumSize = 10000;
+        private Duration ttl = Duration.ofMinutes(10);
+
+        public long getMaximumSize() {
+            return maximumSize;
+        }
+
+        public void setMaximumSize(long maximumSize) {
+            this.maximumSize = maximumSize;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+    }
+}
@@ -1,8 +1,13 @@
 package com.cristian.restapi.config;
 
+import com.cristian.restapi.security.jwt.JwtAuthenticationCache;
 import com.cristian.restapi.security.jwt.JwtTokenFilter;
 import com.cristian.restapi.security.jwt.JwtTokenProvider;
+import com.cristian.restapi.security.password.BoundedPasswordEncoder;
+import com.cristian.restapi.security.password.PasswordEncoderCalibrator;
+import com.cristian.restapi.security.password.PasswordHashingExecutor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -11,14 +16,11 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
-import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.time.Duration;
 
 @EnableWebSecurity
 @Configuration
@@ -27,23 +29,31 @@ public class SecurityConfig {
     @Autowired
     private JwtTokenProvider tokenProvider;
 
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        Pbkdf2PasswordEncoder pbkdf2Encoder = new Pbkdf2PasswordEncoder("", 8, 185000, Pbkdf2PasswordEncoder.SecretKeyFactoryAlgorithm.PBKDF2WithHmacSHA256);
-        Map<String, PasswordEncoder> encoders = new HashMap<>();
+    @Autowired
+    private JwtAuthenticationCache authenticationCache;
+
+    @Value("${security.password.algorithm:pbkdf2}")
+    private String passwordAlgorithm;
 
-        encoders.put("pbkdf2", pbkdf2Encoder);
-        DelegatingPasswordEncoder passwordEncoder = new DelegatingPasswordEncoder("pbkdf2", encoders);
-        passwordEncoder.setDefaultPasswordEncoderForMatches(pbkdf2Encoder);
+    @Value("${security.password.calibration.enabled:false}")
+    private boolean calibratePassword;
+
+    @Value("${security.password.calibration.target-latency:100ms}")
+    private Duration passwordTargetLatency;
+
+    @Bean
+    public PasswordEncoder passwordEncoder(PasswordHashingExecutor hashingExecutor) {
+        PasswordEncoder passwordEncoder = new PasswordEncoderCalibrator(calibratePassword, passwordTargetLatency)
+                .create(passwordAlgorithm);
 
-        return passwordEncoder;
+        return new BoundedPasswordEncoder(passwordEncoder, hashingExecutor);
 
     }
 
 
     @Bean
     SecurityFilterChain configure(HttpSecurity http) throws Exception {
-        JwtTokenFilter customFilter = new JwtTokenFilter(tokenProvider);
+        JwtTokenFilter customFilter = new JwtTokenFilter(tokenProvider, authenticationCache);
 
         return http
                 .httpBasic(AbstractHttpConfigurer::disable)
@@ -58,9 +68,11 @@ public class SecurityConfig {
                                         "/auth/signin",
                                         "/auth/refresh/**",
                                         "/swagger-ui/**",
-                                        "/v3/api-docs/**"
+                                        "/v3/api-docs/**",
+                                        "/actuator/health"
                                 ).permitAll()
                                 .requestMatchers("/api/**").authenticated()
+                                .requestMatchers("/actuator/**").authenticated()
                                 .requestMatchers("/users").denyAll()
                 )
                 .cors(cors -> {
@@ -4,6 +4,7 @@ import com.cristian.restapi.data.vo.v1.security.AccountCredentialVO;
 import com.cristian.restapi.service.AuthService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -20,11 +21,11 @@ public class AuthController {
     @SuppressWarnings("rawtypes")
     @Operation(summary = "Authenticates an user and returns a token")
     @PostMapping("/signin")
-    public ResponseEntity signin(@RequestBody AccountCredentialVO data) {
+    public ResponseEntity signin(@RequestBody AccountCredentialVO data, HttpServletRequest request) {
         if (checkForNullParams(data))
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Invalid client request.");
 
-        var token = authService.signin(data);
+        var token = authService.signin(data, request.getRemoteAddr());
         if (token == null) return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Invalid client request.");
         return token;
     }
@@ -1,10 +1,17 @@
 package com.cristian.restapi.controller;
 
+import com.cristian.restapi.data.vo.v1.BatchItemResultVO;
+import com.cristian.restapi.data.vo.v1.ImportReportVO;
 import com.cristian.restapi.data.vo.v1.BookVO;
+import com.cristian.restapi.data.vo.v1.MultiGetItemVO;
 import com.cristian.restapi.data.vo.v1.PersonVO;
 import com.cristian.restapi.service.BookService;
+import com.cristian.restapi.util.CountMode;
+import com.cristian.restapi.util.Fieldset;
 import com.cristian.restapi.util.MediaType;
+import com.cristian.restapi.util.RowFormat;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -13,16 +20,30 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
-import org.springframework.hateoas.PagedModel;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/books/v1")
 @Tag(name = "Books", description = "Endpoint for managing books")
 public class BookController {
 
+    private static final String PREFER = "Prefer";
+    private static final String PREFERENCE_APPLIED = "Preference-Applied";
+    private static final String RETURN_MINIMAL = "return=minimal";
+    private static final String FIELDS_DESCRIPTION = "Comma-separated properties to return, e.g. author,title. " +
+            "The id is always returned, the links only when 'links' is listed";
+
     @Autowired
     private BookService service;
 
@@ -34,17 +55,87 @@ public class BookController {
                     content = @Content(mediaType = "application/json",
                             array = @ArraySchema(schema = @Schema(implementation = PersonVO.class)))
             ),
+                    @ApiResponse(description = "Not Modified", responseCode = "304", content = @Content),
                     @ApiResponse(description = "Bad Request", responseCode = "400", content = @Content),
                     @ApiResponse(description = "Unauthorized", responseCode = "401", content = @Content),
                     @ApiResponse(description = "Not Found", responseCode = "404", content = @Content),
                     @ApiResponse(description = "Internal Server Error", responseCode = "500", content = @Content)
     })
-    public ResponseEntity<PagedModel<EntityModel<BookVO>>> findAll(@RequestParam(value = "page", defaultValue = "0") Integer page, @RequestParam(value = "size", defaultValue = "10") Integer size, @RequestParam(value = "direction", defaultValue = "asc") String direction) {
+    public ResponseEntity<CollectionModel<EntityModel<BookVO>>> findAll(@RequestParam(value = "page", defaultValue = "0") Integer page, @RequestParam(value = "size", defaultValue = "10") Integer size, @RequestParam(value = "direction", defaultValue = "asc") String direction,
+            @Parameter(description = "exact: count every request, none: no total, cached: approximate total kept in memory")
+            @RequestParam(value = "count", defaultValue = "exact") String count,
+            @Parameter(description = FIELDS_DESCRIPTION)
+            @RequestParam(value = Fieldset.PARAMETER, required = false) String fields,
+            WebRequest request) {
+
+        var sortDirection = "DESC".equalsIgnoreCase(direction) ? Sort.Direction.DESC : Sort.Direction.ASC;
+        org.springframework.data.domain.Pageable pageable = PageRequest.of(page, size, Sort.by(sortDirection, "title", "id"));
+        var countMode = CountMode.of(count);
+        var fieldset = Fieldset.parse(fields);
+        var books = service.findAll(pageable, countMode, fieldset, request.getHeader(HttpHeaders.ACCEPT),
+                request::checkNotModified);
+        if (books.body() == null) return null;
+
+        return ResponseEntity.ok(books.body());
+    }
+
+    @GetMapping(params = "after", produces = {MediaType.APPLICATION_JSON, MediaType.APPLICATION_YML, MediaType.APPLICATION_XML})
+    @Operation(summary = "Finds all books using a cursor",
+            description = "Finds all books after the cursor given in 'after', empty for the first page. " +
+                    "Follow the 'next' link to get the following page. 'size' is at most 100",
+            tags = {"Books"},
+            responses = {
+            @ApiResponse(description = "Success", responseCode = "200",
+                    content = @Content(mediaType = "application/json",
+                            array = @ArraySchema(schema = @Schema(implementation = BookVO.class)))),
+                    @ApiResponse(description = "Bad Request", responseCode = "400", content = @Content),
+                    @ApiResponse(description = "Unauthorized", responseCode = "401", content = @Content),
+                    @ApiResponse(description = "Internal Server Error", responseCode = "500", content = @Content)
+    })
+    public ResponseEntity<CollectionModel<EntityModel<BookVO>>> findAllAfter(@RequestParam(value = "after") String after, @RequestParam(value = "size", defaultValue = "10") Integer size, @RequestParam(value = "direction", defaultValue = "asc") String direction) {
 
         var sortDirection = "DESC".equalsIgnoreCase(direction) ? Sort.Direction.DESC : Sort.Direction.ASC;
-        org.springframework.data.domain.Pageable pageable = PageRequest.of(page, size, Sort.by(sortDirection, "title"));
 
-        return ResponseEntity.ok(service.findAll(pageable));
+        return ResponseEntity.ok(service.findAllAfter(after, size, sortDirection));
+    }
+
+    @GetMapping(params = "ids", produces = {MediaType.APPLICATION_JSON, MediaType.APPLICATION_YML, MediaType.APPLICATION_XML})
+    @Operation(summary = "Finds many books by ID", description = "Finds the books with the comma-separated IDs " +
+            "given in 'ids' and returns one result per ID, in the same order: status 200 with the book, or 404",
+            tags = {"Books"},
+            responses = {
+                    @ApiResponse(description = "Success", responseCode = "200",
+                            content = @Content(mediaType = "application/json",
+                                    array = @ArraySchema(schema = @Schema(implementation = MultiGetItemVO.class)))),
+                    @ApiResponse(description = "Bad Request", responseCode = "400", content = @Content),
+                    @ApiResponse(description = "Unauthorized", responseCode = "401", content = @Content),
+                    @ApiResponse(description = "Internal Server Error", responseCode = "500", content = @Content)
+            })
+    public ResponseEntity<List<MultiGetItemVO<BookVO>>> findAllById(@RequestParam(value = "ids") List<Long> ids,
+            @Parameter(description = FIELDS_DESCRIPTION)
+            @RequestParam(value = Fieldset.PARAMETER, required = false) String fields) {
+        return ResponseEntity.ok(service.findAllById(ids, Fieldset.parse(fields)));
+    }
+
+    @GetMapping(path = "/export", produces = {MediaType.APPLICATION_NDJSON, MediaType.TEXT_CSV})
+    @Operation(summary = "Exports all books", description = "Streams every row of the table, ordered by id, " +
+            "as newline-delimited JSON or CSV",
+            tags = {"Books"},
+            responses = {
+                    @ApiResponse(description = "Success", responseCode = "200", content = @Content),
+                    @ApiResponse(description = "Bad Request", responseCode = "400", content = @Content),
+                    @ApiResponse(description = "Unauthorized", responseCode = "401", content = @Content),
+                    @ApiResponse(description = "Internal Error", responseCode = "500", content = @Content)
+            })
+    public ResponseEntity<StreamingResponseBody> exportAll(
+            @Parameter(description = "ndjson or csv")
+            @RequestParam(value = "format", defaultValue = "ndjson") String format
+    ) {
+        var rowFormat = RowFormat.of(format);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_TYPE, rowFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"books." + rowFormat.value() + "\"")
+                .body(out -> service.exportAll(out, rowFormat));
     }
 
     @GetMapping(path = "/{id}", produces = {MediaType.APPLICATION_JSON, MediaType.APPLICATION_YML, MediaType.APPLICATION_XML})
@@ -54,13 +145,20 @@ public class BookController {
             @ApiResponse(description = "Success", responseCode = "200",
                     content = @Content(mediaType = "application/json",
                             array = @ArraySchema(schema = @Schema(implementation = PersonVO.class)))),
+            @ApiResponse(description = "Not Modified", responseCode = "304", content = @Content),
             @ApiResponse(description = "Bad Request", responseCode = "400", content = @Content),
             @ApiResponse(description = "Unauthorized", responseCode = "401", content = @Content),
             @ApiResponse(description = "Not Found", responseCode = "404", content = @Content),
             @ApiResponse(description = "Internal Server Error", responseCode = "500", content = @Content)
     })
-    public ResponseEntity<BookVO> findById(@PathVariable(value = "id") Long id) {
-        return ResponseEntity.ok(service.findById(id));
+    public ResponseEntity<BookVO> findById(@PathVariable(value = "id") Long id,
+            @Parameter(description = FIELDS_DESCRIPTION)
+            @RequestParam(value = Fieldset.PARAMETER, required = false) String fields,
+            WebRequest request) {
+        var fieldset = Fieldset.parse(fields);
+        var found = service.findById(id, fieldset, request.getHeader(HttpHeaders.ACCEPT), request::checkNotModified);
+        if (found.body() == null) return null;
+        return ResponseEntity.ok(found.body());
     }
 
     @PostMapping(consumes = {MediaType.APPLICATION_JSON, MediaType.APPLICATION_YML, MediaType.APPLICATION_XML},
@@ -77,18 +175,70 @@ public class BookController {
         return ResponseEntity.status(201).body(service.create(book));
     }
 
+    @PostMapping(value = "/batch",
+            consumes = {MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MediaType.APPLICATION_YML},
+            produces = {MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MediaType.APPLICATION_YML})
+    @Operation(summary = "Creates many books", description = "Creates every book of the list and returns the outcome of each one, " +
+            "in the same order: status 201 with the new id, or the status and message of the failure",
+            tags = {"Books"},
+            responses = {
+                    @ApiResponse(description = "Success", responseCode = "200",
+                            content = @Content(mediaType = "application/json",
+                                    array = @ArraySchema(schema = @Schema(implementation = BatchItemResultVO.class)))),
+                    @ApiResponse(description = "Bad Request", responseCode = "400", content = @Content),
+                    @ApiResponse(description = "Unauthorized", responseCode = "401", content = @Content),
+                    @ApiResponse(description = "Internal Error", responseCode = "500", content = @Content)
+            })
+    public ResponseEntity<List<BatchItemResultVO>> createAll(@RequestBody List<BookVO> books) {
+        return ResponseEntity.ok(service.createAll(books));
+    }
+
+    @PostMapping(value = "/import",
+            consumes = {MediaType.APPLICATION_NDJSON, MediaType.TEXT_CSV},
+            produces = {MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MediaType.APPLICATION_YML})
+    @Operation(summary = "Imports books", description = "Reads the request body as newline-delimited JSON or CSV, " +
+            "with the columns of the export, and saves the rows in chunks as they arrive. Chunks that were saved stay " +
+            "saved; the report gives the line of every row that was not",
+            tags = {"Books"},
+            responses = {
+                    @ApiResponse(description = "Success", responseCode = "200",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ImportReportVO.class))),
+                    @ApiResponse(description = "Bad Request", responseCode = "400", content = @Content),
+                    @ApiResponse(description = "Unauthorized", responseCode = "401", content = @Content),
+                    @ApiResponse(description = "Internal Error", responseCode = "500", content = @Content)
+            })
+    public ResponseEntity<ImportReportVO> importAll(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                    InputStream body) throws IOException {
+        return ResponseEntity.ok(service.importAll(body, RowFormat.ofMediaType(contentType)));
+    }
+
     @PutMapping(consumes = {MediaType.APPLICATION_JSON, MediaType.APPLICATION_YML, MediaType.APPLICATION_XML},
             produces = {MediaType.APPLICATION_JSON, MediaType.APPLICATION_YML, MediaType.APPLICATION_XML})
     @Operation(summary = "Upgrades a book", description = "Upgrades a book", tags = {"Books"},
             responses = {
             @ApiResponse(description = "Success", responseCode = "200", content = @Content(mediaType = "application/json",
                     array = @ArraySchema(schema = @Schema(implementation = BookVO.class)))),
+            @ApiResponse(description = "No Content", responseCode = "204", content = @Content),
             @ApiResponse(description = "Bad Request", responseCode = "400", content = @Content),
             @ApiResponse(description = "Unauthorized", responseCode = "401", content = @Content),
             @ApiResponse(description = "Not Found", responseCode = "404", content = @Content),
+            @ApiResponse(description = "Conflict", responseCode = "409", content = @Content),
+            @ApiResponse(description = "Precondition Failed", responseCode = "412", content = @Content),
             @ApiResponse(description = "Internal Server Error", responseCode = "500", content = @Content)})
-    public ResponseEntity<BookVO> update(@RequestBody BookVO book) {
-        return ResponseEntity.ok(service.update(book));
+    public ResponseEntity<BookVO> update(
+            @RequestBody BookVO book,
+            @Parameter(description = "ETag of the book as last read; the update is refused with 412 once it changed")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @Parameter(description = "return=minimal: answer 204 without the book in the body")
+            @RequestHeader(value = PREFER, required = false) String prefer,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept
+    ) {
+        var updated = service.update(book, ifMatch, accept);
+        if (prefer != null && prefer.contains(RETURN_MINIMAL)) {
+            return ResponseEntity.status(HttpStatus.NO_CONTENT).header(PREFERENCE_APPLIED, RETURN_MINIMAL)
+                    .eTag(updated.etag()).build();
+        }
+        return ResponseEntity.ok().eTag(updated.etag()).body(updated.body());
     }
 
     @DeleteMapping(value = "/{id}")
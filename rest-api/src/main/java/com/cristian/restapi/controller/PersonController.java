@@ -1,9 +1,17 @@
 package com.cristian.restapi.controller;
 
+import com.cristian.restapi.data.vo.v1.BatchItemResultVO;
+import com.cristian.restapi.data.vo.v1.BulkResultVO;
+import com.cristian.restapi.data.vo.v1.ImportReportVO;
+import com.cristian.restapi.data.vo.v1.MultiGetItemVO;
 import com.cristian.restapi.data.vo.v1.PersonVO;
 import com.cristian.restapi.service.PersonService;
+import com.cristian.restapi.util.CountMode;
+import com.cristian.restapi.util.Fieldset;
 import com.cristian.restapi.util.MediaType;
+import com.cristian.restapi.util.RowFormat;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -13,16 +21,30 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
-import org.springframework.hateoas.PagedModel;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/people/v1")
 @Tag(name = "People", description = "Endpoint for managing people")
 public class PersonController {
 
+    private static final String PREFER = "Prefer";
+    private static final String PREFERENCE_APPLIED = "Preference-Applied";
+    private static final String RETURN_MINIMAL = "return=minimal";
+    private static final String FIELDS_DESCRIPTION = "Comma-separated properties to return, e.g. firstName,lastName. " +
+            "The id is always returned, the links only when 'links' is listed";
+
     @Autowired
     private PersonService service;
 
@@ -33,19 +55,74 @@ public class PersonController {
                     @ApiResponse(description = "Success", responseCode = "200",
                             content = @Content(mediaType = "application/json",
                                     array = @ArraySchema(schema = @Schema(implementation = PersonVO.class)))),
+                    @ApiResponse(description = "Not Modified", responseCode = "304", content = @Content),
                     @ApiResponse(description = "Bad Request", responseCode = "400", content = @Content),
                     @ApiResponse(description = "Unauthorized", responseCode = "401", content = @Content),
                     @ApiResponse(description = "Not Found", responseCode = "404", content = @Content),
                     @ApiResponse(description = "Internal Server Error", responseCode = "500", content = @Content)
             })
-    public ResponseEntity<PagedModel<EntityModel<PersonVO>>> findAll(
+    public ResponseEntity<CollectionModel<EntityModel<PersonVO>>> findAll(
             @RequestParam(value = "page", defaultValue = "0") Integer page,
             @RequestParam(value = "size", defaultValue = "12") Integer size,
+            @RequestParam(value = "direction", defaultValue = "asc") String direction,
+            @Parameter(description = "exact: count every request, none: no total, cached: approximate total kept in memory")
+            @RequestParam(value = "count", defaultValue = "exact") String count,
+            @Parameter(description = FIELDS_DESCRIPTION)
+            @RequestParam(value = Fieldset.PARAMETER, required = false) String fields,
+            WebRequest request
+    ) {
+        var sortDirection = "desc".equalsIgnoreCase(direction) ? Sort.Direction.DESC : Sort.Direction.ASC;
+        Pageable pageable = PageRequest.of(page, size, Sort.by(sortDirection, "firstName", "id"));
+        var countMode = CountMode.of(count);
+        var fieldset = Fieldset.parse(fields);
+        var people = service.findAll(pageable, countMode, fieldset, request.getHeader(HttpHeaders.ACCEPT),
+                request::checkNotModified);
+        if (people.body() == null) return null;
+        return ResponseEntity.ok(people.body());
+    }
+
+    @GetMapping(params = "after",
+            produces = {MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MediaType.APPLICATION_YML})
+    @Operation(summary = "Find all people using a cursor",
+            description = "Finds all people after the cursor given in 'after', empty for the first page. " +
+                    "Follow the 'next' link to get the following page. 'size' is at most 100",
+            tags = {"People"},
+            responses = {
+                    @ApiResponse(description = "Success", responseCode = "200",
+                            content = @Content(mediaType = "application/json",
+                                    array = @ArraySchema(schema = @Schema(implementation = PersonVO.class)))),
+                    @ApiResponse(description = "Bad Request", responseCode = "400", content = @Content),
+                    @ApiResponse(description = "Unauthorized", responseCode = "401", content = @Content),
+                    @ApiResponse(description = "Internal Server Error", responseCode = "500", content = @Content)
+            })
+    public ResponseEntity<CollectionModel<EntityModel<PersonVO>>> findAllAfter(
+            @RequestParam(value = "after") String after,
+            @RequestParam(value = "size", defaultValue = "12") Integer size,
             @RequestParam(value = "direction", defaultValue = "asc") String direction
     ) {
         var sortDirection = "desc".equalsIgnoreCase(direction) ? Sort.Direction.DESC : Sort.Direction.ASC;
-        Pageable pageable = PageRequest.of(page, size, Sort.by(sortDirection, "firstName"));
-        return ResponseEntity.ok(service.findAll(pageable));
+        return ResponseEntity.ok(service.findAllAfter(after, size, sortDirection));
+    }
+
+    @GetMapping(params = "ids",
+            produces = {MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MediaType.APPLICATION_YML})
+    @Operation(summary = "Finds many people by ID", description = "Finds the people with the comma-separated IDs " +
+            "given in 'ids' and returns one result per ID, in the same order: status 200 with the person, or 404",
+            tags = {"People"},
+            responses = {
+                    @ApiResponse(description = "Success", responseCode = "200",
+                            content = @Content(mediaType = "application/json",
+                                    array = @ArraySchema(schema = @Schema(implementation = MultiGetItemVO.class)))),
+                    @ApiResponse(description = "Bad Request", responseCode = "400", content = @Content),
+                    @ApiResponse(description = "Unauthorized", responseCode = "401", content = @Content),
+                    @ApiResponse(description = "Internal Server Error", responseCode = "500", content = @Content)
+            })
+    public ResponseEntity<List<MultiGetItemVO<PersonVO>>> findAllById(
+            @RequestParam(value = "ids") List<Long> ids,
+            @Parameter(description = FIELDS_DESCRIPTION)
+            @RequestParam(value = Fieldset.PARAMETER, required = false) String fields
+    ) {
+        return ResponseEntity.ok(service.findAllById(ids, Fieldset.parse(fields)));
     }
 
     @GetMapping(
@@ -62,15 +139,38 @@ public class PersonController {
                     @ApiResponse(description = "Not Found", responseCode = "404", content = @Content),
                     @ApiResponse(description = "Internal Server Error", responseCode = "500", content = @Content)
             })
-    public ResponseEntity<PagedModel<EntityModel<PersonVO>>> findPeopleByName(
+    public ResponseEntity<CollectionModel<EntityModel<PersonVO>>> findPeopleByName(
             @PathVariable(value = "firstName") String firstName,
             @RequestParam(value = "page", defaultValue = "0") Integer page,
             @RequestParam(value = "size", defaultValue = "12") Integer size,
-            @RequestParam(value = "direction", defaultValue = "asc") String direction
+            @RequestParam(value = "direction", defaultValue = "asc") String direction,
+            @Parameter(description = "exact: count every request, none: no total")
+            @RequestParam(value = "count", defaultValue = "exact") String count
     ) {
         var sortDirection = "desc".equalsIgnoreCase(direction) ? Sort.Direction.DESC : Sort.Direction.ASC;
-        Pageable pageable = PageRequest.of(page, size, Sort.by(sortDirection, "firstName"));
-        return ResponseEntity.ok(service.findPeopleByName(firstName, pageable));
+        Pageable pageable = PageRequest.of(page, size, Sort.by(sortDirection, "firstName", "id"));
+        return ResponseEntity.ok(service.findPeopleByName(firstName, pageable, CountMode.of(count)));
+    }
+
+    @GetMapping(value = "/export", produces = {MediaType.APPLICATION_NDJSON, MediaType.TEXT_CSV})
+    @Operation(summary = "Exports all people", description = "Streams every row of the table, ordered by id, " +
+            "as newline-delimited JSON or CSV",
+            tags = {"People"},
+            responses = {
+                    @ApiResponse(description = "Success", responseCode = "200", content = @Content),
+                    @ApiResponse(description = "Bad Request", responseCode = "400", content = @Content),
+                    @ApiResponse(description = "Unauthorized", responseCode = "401", content = @Content),
+                    @ApiResponse(description = "Internal Error", responseCode = "500", content = @Content)
+            })
+    public ResponseEntity<StreamingResponseBody> exportAll(
+            @Parameter(description = "ndjson or csv")
+            @RequestParam(value = "format", defaultValue = "ndjson") String format
+    ) {
+        var rowFormat = RowFormat.of(format);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_TYPE, rowFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"people." + rowFormat.value() + "\"")
+                .body(out -> service.exportAll(out, rowFormat));
     }
 
     @GetMapping(value = "/{id}",
@@ -82,13 +182,22 @@ public class PersonController {
                             content = @Content(mediaType = "application/json",
                                     array = @ArraySchema(schema = @Schema(implementation = PersonVO.class)))),
                     @ApiResponse(description = "No Content", responseCode = "204", content = @Content),
+                    @ApiResponse(description = "Not Modified", responseCode = "304", content = @Content),
                     @ApiResponse(description = "Bad Request", responseCode = "400", content = @Content),
                     @ApiResponse(description = "Unauthorized", responseCode = "401", content = @Content),
                     @ApiResponse(description = "Not Found", responseCode = "404", content = @Content),
                     @ApiResponse(description = "Internal Error", responseCode = "500", content = @Content)
             })
-    public ResponseEntity<PersonVO> findById(@PathVariable(value = "id") Long id) {
-        return ResponseEntity.ok(service.findById(id));
+    public ResponseEntity<PersonVO> findById(
+            @PathVariable(value = "id") Long id,
+            @Parameter(description = FIELDS_DESCRIPTION)
+            @RequestParam(value = Fieldset.PARAMETER, required = false) String fields,
+            WebRequest request
+    ) {
+        var fieldset = Fieldset.parse(fields);
+        var found = service.findById(id, fieldset, request.getHeader(HttpHeaders.ACCEPT), request::checkNotModified);
+        if (found.body() == null) return null;
+        return ResponseEntity.ok(found.body());
     }
 
     @PostMapping(consumes = {MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MediaType.APPLICATION_YML},
@@ -107,6 +216,43 @@ public class PersonController {
         return ResponseEntity.status(201).body(service.create(person));
     }
 
+    @PostMapping(value = "/batch",
+            consumes = {MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MediaType.APPLICATION_YML},
+            produces = {MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MediaType.APPLICATION_YML})
+    @Operation(summary = "Creates many people", description = "Creates every person of the list and returns the outcome of each one, " +
+            "in the same order: status 201 with the new id, or the status and message of the failure",
+            tags = {"People"},
+            responses = {
+                    @ApiResponse(description = "Success", responseCode = "200",
+                            content = @Content(mediaType = "application/json",
+                                    array = @ArraySchema(schema = @Schema(implementation = BatchItemResultVO.class)))),
+                    @ApiResponse(description = "Bad Request", responseCode = "400", content = @Content),
+                    @ApiResponse(description = "Unauthorized", responseCode = "401", content = @Content),
+                    @ApiResponse(description = "Internal Error", responseCode = "500", content = @Content)
+            })
+    public ResponseEntity<List<BatchItemResultVO>> createAll(@RequestBody List<PersonVO> people) {
+        return ResponseEntity.ok(service.createAll(people));
+    }
+
+    @PostMapping(value = "/import",
+            consumes = {MediaType.APPLICATION_NDJSON, MediaType.TEXT_CSV},
+            produces = {MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MediaType.APPLICATION_YML})
+    @Operation(summary = "Imports people", description = "Reads the request body as newline-delimited JSON or CSV, " +
+            "with the columns of the export, and saves the rows in chunks as they arrive. Chunks that were saved stay " +
+            "saved; the report gives the line of every row that was not",
+            tags = {"People"},
+            responses = {
+                    @ApiResponse(description = "Success", responseCode = "200",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ImportReportVO.class))),
+                    @ApiResponse(description = "Bad Request", responseCode = "400", content = @Content),
+                    @ApiResponse(description = "Unauthorized", responseCode = "401", content = @Content),
+                    @ApiResponse(description = "Internal Error", responseCode = "500", content = @Content)
+            })
+    public ResponseEntity<ImportReportVO> importAll(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                    InputStream body) throws IOException {
+        return ResponseEntity.ok(service.importAll(body, RowFormat.ofMediaType(contentType)));
+    }
+
     @PutMapping(consumes = {MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MediaType.APPLICATION_YML},
             produces = {MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MediaType.APPLICATION_YML})
     @Operation(summary = "Upgrades a person", description = "Upgrades a person",
@@ -115,13 +261,28 @@ public class PersonController {
                     @ApiResponse(description = "Success", responseCode = "200",
                             content = @Content(mediaType = "application/json",
                                     array = @ArraySchema(schema = @Schema(implementation = PersonVO.class)))),
+                    @ApiResponse(description = "No Content", responseCode = "204", content = @Content),
                     @ApiResponse(description = "Bad Request", responseCode = "400", content = @Content),
                     @ApiResponse(description = "Unauthorized", responseCode = "401", content = @Content),
                     @ApiResponse(description = "Not Found", responseCode = "404", content = @Content),
+                    @ApiResponse(description = "Conflict", responseCode = "409", content = @Content),
+                    @ApiResponse(description = "Precondition Failed", responseCode = "412", content = @Content),
                     @ApiResponse(description = "Internal Error", responseCode = "500", content = @Content)
             })
-    public ResponseEntity<PersonVO> update(@RequestBody PersonVO person) {
-        return ResponseEntity.ok(service.update(person));
+    public ResponseEntity<PersonVO> update(
+            @RequestBody PersonVO person,
+            @Parameter(description = "ETag of the person as last read; the update is refused with 412 once it changed")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @Parameter(description = "return=minimal: answer 204 without the person in the body")
+            @RequestHeader(value = PREFER, required = false) String prefer,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept
+    ) {
+        var updated = service.update(person, ifMatch, accept);
+        if (prefer != null && prefer.contains(RETURN_MINIMAL)) {
+            return ResponseEntity.status(HttpStatus.NO_CONTENT).header(PREFERENCE_APPLIED, RETURN_MINIMAL)
+                    .eTag(updated.etag()).build();
+        }
+        return ResponseEntity.ok().eTag(updated.etag()).body(updated.body());
     }
 
     @PatchMapping(value = "/{id}",
@@ -138,10 +299,51 @@ public class PersonController {
                     @ApiResponse(description = "Not Found", responseCode = "404", content = @Content),
                     @ApiResponse(description = "Internal Error", responseCode = "500", content = @Content)
             })
-    public ResponseEntity<PersonVO> disablePerson(@PathVariable(value = "id") Long id) {
+    public ResponseEntity<PersonVO> disablePerson(
+            @PathVariable(value = "id") Long id,
+            @Parameter(description = "return=minimal: answer 204 without the person in the body")
+            @RequestHeader(value = PREFER, required = false) String prefer
+    ) {
+        if (prefer != null && prefer.contains(RETURN_MINIMAL)) {
+            service.disablePersonWithoutReadback(id);
+            return ResponseEntity.noContent().header(PREFERENCE_APPLIED, RETURN_MINIMAL).build();
+        }
         return ResponseEntity.ok(service.disablePerson(id));
     }
 
+    @PatchMapping(value = "/batch/disable",
+            consumes = {MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MediaType.APPLICATION_YML},
+            produces = {MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MediaType.APPLICATION_YML})
+    @Operation(summary = "Disables many people by ID", description = "Disables the people with the given IDs " +
+            "with set-based updates and returns how many were enabled before",
+            tags = {"People"},
+            responses = {
+                    @ApiResponse(description = "Success", responseCode = "200",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = BulkResultVO.class))),
+                    @ApiResponse(description = "Bad Request", responseCode = "400", content = @Content),
+                    @ApiResponse(description = "Unauthorized", responseCode = "401", content = @Content),
+                    @ApiResponse(description = "Internal Error", responseCode = "500", content = @Content)
+            })
+    public ResponseEntity<BulkResultVO> disableAll(@RequestBody List<Long> ids) {
+        return ResponseEntity.ok(service.disableAll(ids));
+    }
+
+    @PatchMapping(value = "/batch/disable", params = "firstName",
+            produces = {MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MediaType.APPLICATION_YML})
+    @Operation(summary = "Disables people by name", description = "Disables every person whose first name " +
+            "contains the given one, with a single update, and returns how many were enabled before",
+            tags = {"People"},
+            responses = {
+                    @ApiResponse(description = "Success", responseCode = "200",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = BulkResultVO.class))),
+                    @ApiResponse(description = "Bad Request", responseCode = "400", content = @Content),
+                    @ApiResponse(description = "Unauthorized", responseCode = "401", content = @Content),
+                    @ApiResponse(description = "Internal Error", responseCode = "500", content = @Content)
+            })
+    public ResponseEntity<BulkResultVO> disableAllByName(@RequestParam(value = "firstName") String firstName) {
+        return ResponseEntity.ok(service.disableAllByName(firstName));
+    }
+
 
     @DeleteMapping(value = "/{id}")
     @Operation(summary = "Deletes a specific person", description = "Deletes a specific person",
@@ -157,4 +359,21 @@ public class PersonController {
         service.delete(id);
         return ResponseEntity.noContent().build();
     }
+
+    @DeleteMapping(value = "/batch",
+            consumes = {MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MediaType.APPLICATION_YML},
+            produces = {MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML, MediaType.APPLICATION_YML})
+    @Operation(summary = "Deletes many people by ID", description = "Deletes the people with the given IDs " +
+            "with set-based deletes and returns how many existed",
+            tags = {"People"},
+            responses = {
+                    @ApiResponse(description = "Success", responseCode = "200",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = BulkResultVO.class))),
+                    @ApiResponse(description = "Bad Request", responseCode = "400", content = @Content),
+                    @ApiResponse(description = "Unauthorized", responseCode = "401", content = @Content),
+                    @ApiResponse(description = "Internal Error", responseCode = "500", content = @Content)
+            })
+    public ResponseEntity<BulkResultVO> deleteAll(@RequestBody List<Long> ids) {
+        return ResponseEntity.ok(service.deleteAll(ids));
+    }
 }
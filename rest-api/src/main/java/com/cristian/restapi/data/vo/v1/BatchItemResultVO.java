@@ -0,0 +1,83 @@
+package com.cristian.restapi.data.vo.v1;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import org.springframework.hateoas.RepresentationModel;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Outcome of one item of a batch request, in the position it had in the request.
+ * {@code status} is 201 for a created item, 400 for an item that was rejected and 500 for an item that could
+ * not be saved for any other reason.
+ */
+@JsonPropertyOrder({"index", "status", "id", "message"})
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchItemResultVO extends RepresentationModel<BatchItemResultVO> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private int index;
+    private int status;
+    @JsonProperty("id")
+    private Long key;
+    private String message;
+
+    public BatchItemResultVO() {
+    }
+
+    public BatchItemResultVO(int index, int status, Long key, String message) {
+        this.index = index;
+        this.status = status;
+        this.key = key;
+        this.message = message;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public void setStatus(int status) {
+        this.status = status;
+    }
+
+    public Long getKey() {
+        return key;
+    }
+
+    public void setKey(Long key) {
+        this.key = key;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        if (!super.equals(o)) return false;
+        BatchItemResultVO that = (BatchItemResultVO) o;
+        return index == that.index && status == that.status && Objects.equals(key, that.key) && Objects.equals(message, that.message);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(super.hashCode(), index, status, key, message);
+    }
+}
@@ -1,5 +1,7 @@
 package com.cristian.restapi.data.vo.v1;
 
+import com.cristian.restapi.util.Fieldset;
+import com.fasterxml.jackson.annotation.JsonFilter;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 import org.springframework.hateoas.RepresentationModel;
@@ -8,6 +10,7 @@ import java.io.Serializable;
 import java.util.Date;
 import java.util.Objects;
 
+@JsonFilter(Fieldset.FILTER_ID)
 @JsonPropertyOrder({"id", "title", "author", "launchDate", "price"})
 public class BookVO extends RepresentationModel<BookVO> implements Serializable {
 
@@ -23,6 +26,17 @@ public class BookVO extends RepresentationModel<BookVO> implements Serializable
     public BookVO() {
     }
 
+    /**
+     * Used by JPQL constructor expressions; parameters are named after the {@code Book} properties.
+     */
+    public BookVO(Long id, String author, String title, Date launchDate, Double price) {
+        this.key = id;
+        this.author = author;
+        this.title = title;
+        this.launchDate = launchDate;
+        this.price = price;
+    }
+
     public Long getKey() {
         return key;
     }
@@ -0,0 +1,58 @@
+package com.cristian.restapi.data.vo.v1;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Outcome of a set-based update or delete: how many ids were given, when the rows were selected by id, and how
+ * many rows were changed.
+ */
+@JsonPropertyOrder({"requested", "affected"})
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkResultVO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Integer requested;
+    private long affected;
+
+    public BulkResultVO() {
+    }
+
+    public BulkResultVO(Integer requested, long affected) {
+        this.requested = requested;
+        this.affected = affected;
+    }
+
+    public Integer getRequested() {
+        return requested;
+    }
+
+    public void setRequested(Integer requested) {
+        this.requested = requested;
+    }
+
+    public long getAffected() {
+        return affected;
+    }
+
+    public void setAffected(long affected) {
+        this.affected = affected;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        BulkResultVO that = (BulkResultVO) o;
+        return affected == that.affected && Objects.equals(requested, that.requested);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(requested, affected);
+    }
+}
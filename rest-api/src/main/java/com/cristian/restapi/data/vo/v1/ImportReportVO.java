@@ -0,0 +1,117 @@
+package com.cristian.restapi.data.vo.v1;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Outcome of an import. Rows are counted from the first data row; {@code failures} lists at most the first
+ * {@code RowImporter.MAX_REPORTED_FAILURES} failed rows, by the line of the upload they start on.
+ */
+@JsonPropertyOrder({"rowsRead", "rowsImported", "rowsFailed", "failures"})
+public class ImportReportVO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private long rowsRead;
+    private long rowsImported;
+    private long rowsFailed;
+    private List<Failure> failures = new ArrayList<>();
+
+    public ImportReportVO() {
+    }
+
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    public void setRowsRead(long rowsRead) {
+        this.rowsRead = rowsRead;
+    }
+
+    public long getRowsImported() {
+        return rowsImported;
+    }
+
+    public void setRowsImported(long rowsImported) {
+        this.rowsImported = rowsImported;
+    }
+
+    public long getRowsFailed() {
+        return rowsFailed;
+    }
+
+    public void setRowsFailed(long rowsFailed) {
+        this.rowsFailed = rowsFailed;
+    }
+
+    public List<Failure> getFailures() {
+        return failures;
+    }
+
+    public void setFailures(List<Failure> failures) {
+        this.failures = failures;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ImportReportVO that = (ImportReportVO) o;
+        return rowsRead == that.rowsRead && rowsImported == that.rowsImported && rowsFailed == that.rowsFailed
+                && Objects.equals(failures, that.failures);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(rowsRead, rowsImported, rowsFailed, failures);
+    }
+
+    public static class Failure implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private long line;
+        private String message;
+
+        public Failure() {
+        }
+
+        public Failure(long line, String message) {
+            this.line = line;
+            this.message = message;
+        }
+
+        public long getLine() {
+            return line;
+        }
+
+        public void setLine(long line) {
+            this.line = line;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public void setMessage(String message) {
+            this.message = message;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Failure failure = (Failure) o;
+            return line == failure.line && Objects.equals(message, failure.message);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(line, message);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.cristian.restapi.data.vo.v1;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import org.springframework.http.HttpStatus;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * One id of a multi-get request, in the position it had in the request: status 200 with the resource in
+ * {@code item}, or 404 without it.
+ */
+@JsonPropertyOrder({"id", "status", "item"})
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class MultiGetItemVO<T> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Long id;
+    private int status;
+    private T item;
+
+    public MultiGetItemVO() {
+    }
+
+    public MultiGetItemVO(Long id, int status, T item) {
+        this.id = id;
+        this.status = status;
+        this.item = item;
+    }
+
+    /**
+     * One result per requested id, repeated ids included, taking the resources from {@code found} by id.
+     */
+    public static <T> List<MultiGetItemVO<T>> inRequestOrder(List<Long> ids, Map<Long, T> found) {
+        List<MultiGetItemVO<T>> results = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            T item = id == null ? null : found.get(id);
+            results.add(new MultiGetItemVO<>(id, (item == null ? HttpStatus.NOT_FOUND : HttpStatus.OK).value(), item));
+        }
+        return results;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public void setStatus(int status) {
+        this.status = status;
+    }
+
+    public T getItem() {
+        return item;
+    }
+
+    public void setItem(T item) {
+        this.item = item;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        MultiGetItemVO<?> that = (MultiGetItemVO<?>) o;
+        return status == that.status && Objects.equals(id, that.id) && Objects.equals(item, that.item);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, status, item);
+    }
+}
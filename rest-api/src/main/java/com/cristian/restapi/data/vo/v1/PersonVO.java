@@ -1,5 +1,7 @@
 package com.cristian.restapi.data.vo.v1;
 
+import com.cristian.restapi.util.Fieldset;
+import com.fasterxml.jackson.annotation.JsonFilter;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 import org.springframework.hateoas.RepresentationModel;
@@ -8,6 +10,7 @@ import java.io.Serializable;
 import java.util.Objects;
 
 
+@JsonFilter(Fieldset.FILTER_ID)
 @JsonPropertyOrder({"id", "firstName", "lastName", "address", "gender"})
 public class PersonVO extends RepresentationModel<PersonVO> implements Serializable {
 
@@ -24,6 +27,18 @@ public class PersonVO extends RepresentationModel<PersonVO> implements Serializa
     public PersonVO() {
     }
 
+    /**
+     * Used by JPQL constructor expressions; parameters are named after the {@code Person} properties.
+     */
+    public PersonVO(Long id, String firstName, String lastName, String address, String gender, Boolean enabled) {
+        this.key = id;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.address = address;
+        this.gender = gender;
+        this.enabled = enabled;
+    }
+
     public Boolean getEnabled() {
         return enabled;
     }
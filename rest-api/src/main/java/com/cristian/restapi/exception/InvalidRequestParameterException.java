@@ -0,0 +1,14 @@
+package com.cristian.restapi.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidRequestParameterException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public InvalidRequestParameterException(String ex) {
+        super(ex);
+    }
+}
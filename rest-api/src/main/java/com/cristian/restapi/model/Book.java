@@ -1,6 +1,8 @@
 package com.cristian.restapi.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.io.Serializable;
 import java.util.Date;
@@ -8,9 +10,14 @@ import java.util.Objects;
 
 @Entity
 @Table(name = "books")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "book")
 public class Book implements Serializable {
     private static final long serialVersionUID = 1L;
 
+    /**
+     * {@code id-allocation.mode: pooled} replaces this with the table generator of {@code META-INF/pooled-ids.orm.xml}.
+     */
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -28,6 +35,13 @@ public class Book implements Serializable {
     @Column(nullable = false)
     private Double price;
 
+    /**
+     * Bumped on every update, see {@code V16__Add_Row_Version_Columns.sql}.
+     */
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
     public Book() {
     }
 
@@ -71,6 +85,14 @@ public class Book implements Serializable {
         this.price = price;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
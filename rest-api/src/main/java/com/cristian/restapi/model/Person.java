@@ -1,15 +1,22 @@
 package com.cristian.restapi.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.io.Serializable;
 import java.util.Objects;
 
 @Entity
 @Table(name = "person")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "person")
 public class Person implements Serializable {
     private static final long serialVersionUID = 1L;
 
+    /**
+     * {@code id-allocation.mode: pooled} replaces this with the table generator of {@code META-INF/pooled-ids.orm.xml}.
+     */
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -29,6 +36,13 @@ public class Person implements Serializable {
     @Column(nullable = false)
     private Boolean enabled;
 
+    /**
+     * Bumped on every update, see {@code V16__Add_Row_Version_Columns.sql}.
+     */
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
     public Person() {
     }
 
@@ -80,6 +94,14 @@ public class Person implements Serializable {
         this.gender = gender;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -77,6 +77,10 @@ public class User implements Serializable, UserDetails {
         return this.password;
     }
 
+    public void setPassword(String password) {
+        this.password = password;
+    }
+
     @Override
     public String getUsername() {
         return this.userName;
@@ -1,9 +1,69 @@
 package com.cristian.restapi.repository;
 
+import com.cristian.restapi.data.vo.v1.BookVO;
 import com.cristian.restapi.model.Book;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
 @Repository
 public interface BookRepository extends JpaRepository<Book, Long> {
+
+    String SELECT_VO = "SELECT new com.cristian.restapi.data.vo.v1.BookVO(" +
+            "b.id, b.author, b.title, b.launchDate, b.price) FROM Book b";
+
+    /**
+     * The constructor expression of {@link #SELECT_VO}, for {@link SparseFieldsetQueries}.
+     */
+    VoProjection<Book, BookVO> VO_PROJECTION = new VoProjection<>(Book.class, BookVO.class,
+            List.of("id", "author", "title", "launchDate", "price"));
+
+    /**
+     * Reads the columns of {@link BookVO} straight into it, without managed entities, and without counting.
+     */
+    @Query(SELECT_VO)
+    Slice<BookVO> findSliceOfVOs(Pageable pageable);
+
+    @Query(SELECT_VO + " WHERE b.id IN :ids")
+    List<BookVO> findAllVOsById(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Every book in id order, see {@link PersonRepository#streamAllVOs()}.
+     */
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = PersonRepository.STREAMING_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "IGNORE")})
+    @Query(SELECT_VO + " ORDER BY b.id")
+    Stream<BookVO> streamAllVOs();
+
+    /**
+     * See {@link PersonRepository#findVersionById(Long)}.
+     */
+    @Query("SELECT b.version FROM Book b WHERE b.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    /**
+     * See {@link PersonRepository#findSliceOfVersions(Pageable)}.
+     */
+    @Query("SELECT b.id AS id, b.version AS version FROM Book b")
+    Slice<RowVersion> findSliceOfVersions(Pageable pageable);
+
+    /**
+     * Keyset scrolling, see {@link PersonRepository#findBy(ScrollPosition, Sort, Limit)}.
+     */
+    Window<Book> findBy(ScrollPosition position, Sort sort, Limit limit);
 }
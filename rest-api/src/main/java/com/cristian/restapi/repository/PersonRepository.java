@@ -1,23 +1,137 @@
 package com.cristian.restapi.repository;
 
+import com.cristian.restapi.data.vo.v1.PersonVO;
 import com.cristian.restapi.model.Person;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
 @Repository
 public interface PersonRepository extends JpaRepository<Person, Long> {
 
+    /**
+     * Returns the number of rows matched, so 0 when there is no such person.
+     */
+    @Modifying
+    @Query("UPDATE Person p SET p.enabled = false, p.version = p.version + 1 WHERE p.id =:id")
+    int disablePerson(@Param("id") Long id);
+
+    /**
+     * Returns the number of people that were enabled before.
+     */
+    @Modifying
+    @Query("UPDATE Person p SET p.enabled = false, p.version = p.version + 1 WHERE p.enabled = true AND p.id IN :ids")
+    int disableAllById(@Param("ids") Collection<Long> ids);
+
     @Modifying
-    @Query("UPDATE Person p SET p.enabled = false  WHERE p.id =:id")
-    void disablePerson(@Param("id") Long id);
+    @Query("UPDATE Person p SET p.enabled = false, p.version = p.version + 1 WHERE p.enabled = true " +
+            "AND LOWER(p.firstName) LIKE LOWER(CONCAT ('%',:firstName,'%'))")
+    int disableAllByName(@Param("firstName") String firstName);
+
+    @Modifying
+    @Query("DELETE FROM Person p WHERE p.id IN :ids")
+    int deleteAllById(@Param("ids") Collection<Long> ids);
 
 
     //"SELECT p FROM Person p WHERE p.firstName LIKE LOWER(CONCAT ('%',:firstName,'%'))"
-    @Query("SELECT p FROM Person p WHERE p.firstName LIKE LOWER(CONCAT ('%',:firstName,'%'))")
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "person-by-name")})
+    @Query("SELECT p FROM Person p WHERE LOWER(p.firstName) LIKE LOWER(CONCAT ('%',:firstName,'%'))")
     Page<Person> findPeopleByName(@Param("firstName") String firstName, Pageable pageable);
+
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "person-by-name")})
+    @Query("SELECT p FROM Person p WHERE LOWER(p.firstName) LIKE LOWER(CONCAT ('%',:firstName,'%'))")
+    Slice<Person> findSliceOfPeopleByName(@Param("firstName") String firstName, Pageable pageable);
+
+    /**
+     * Substring search through the ngram FULLTEXT index on {@code first_name}. {@code phrase} comes from
+     * {@link com.cristian.restapi.util.FullTextSearch#substringPhrase(String)}; the LIKE only re-checks the
+     * candidates found by the index. Sort by column names, as this is a native query.
+     */
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "person-by-name"),
+            @QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "person")})
+    @Query(value = "SELECT * FROM person p WHERE MATCH (p.first_name) AGAINST (:phrase IN BOOLEAN MODE) " +
+            "AND LOWER(p.first_name) LIKE CONCAT('%', LOWER(:firstName), '%')",
+            countQuery = "SELECT COUNT(*) FROM person p WHERE MATCH (p.first_name) AGAINST (:phrase IN BOOLEAN MODE) " +
+                    "AND LOWER(p.first_name) LIKE CONCAT('%', LOWER(:firstName), '%')",
+            nativeQuery = true)
+    Page<Person> searchPeopleByName(@Param("firstName") String firstName, @Param("phrase") String phrase, Pageable pageable);
+
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "person-by-name"),
+            @QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "person")})
+    @Query(value = "SELECT * FROM person p WHERE MATCH (p.first_name) AGAINST (:phrase IN BOOLEAN MODE) " +
+            "AND LOWER(p.first_name) LIKE CONCAT('%', LOWER(:firstName), '%')",
+            nativeQuery = true)
+    Slice<Person> searchSliceOfPeopleByName(@Param("firstName") String firstName, @Param("phrase") String phrase, Pageable pageable);
+
+    String SELECT_VO = "SELECT new com.cristian.restapi.data.vo.v1.PersonVO(" +
+            "p.id, p.firstName, p.lastName, p.address, p.gender, p.enabled) FROM Person p";
+
+    /**
+     * The constructor expression of {@link #SELECT_VO}, for {@link SparseFieldsetQueries}.
+     */
+    VoProjection<Person, PersonVO> VO_PROJECTION = new VoProjection<>(Person.class, PersonVO.class,
+            List.of("id", "firstName", "lastName", "address", "gender", "enabled"));
+
+    /**
+     * Reads the columns of {@link PersonVO} straight into it, without managed entities, and without counting.
+     */
+    @Query(SELECT_VO)
+    Slice<PersonVO> findSliceOfVOs(Pageable pageable);
+
+    @Query(SELECT_VO + " WHERE p.id IN :ids")
+    List<PersonVO> findAllVOsById(@Param("ids") Collection<Long> ids);
+
+    /**
+     * MySQL Connector/J only streams a result set row by row with this fetch size; with any other it reads
+     * the whole result into memory first.
+     */
+    String STREAMING_FETCH_SIZE = "" + Integer.MIN_VALUE;
+
+    /**
+     * Every person in id order, read through a forward-only cursor. Must be consumed and closed inside a
+     * transaction, which keeps its connection busy until then.
+     */
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAMING_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "IGNORE")})
+    @Query(SELECT_VO + " ORDER BY p.id")
+    Stream<PersonVO> streamAllVOs();
+
+    /**
+     * The version of one person, to tag a sparse fieldset read, which does not select it.
+     */
+    @Query("SELECT p.version FROM Person p WHERE p.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    /**
+     * The ids and versions of the rows of {@link #findSliceOfVOs(Pageable)}, to validate the ETag of a page.
+     */
+    @Query("SELECT p.id AS id, p.version AS version FROM Person p")
+    Slice<RowVersion> findSliceOfVersions(Pageable pageable);
+
+    /**
+     * Keyset scrolling: resumes after {@code position} with a seek predicate on the sort columns
+     * and fetches one extra row to know whether there is a next window, without counting.
+     */
+    Window<Person> findBy(ScrollPosition position, Sort sort, Limit limit);
 }
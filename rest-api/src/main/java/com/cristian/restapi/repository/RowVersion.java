@@ -0,0 +1,11 @@
+package com.cristian.restapi.repository;
+
+/**
+ * The version of a row, read without the rest of its columns.
+ */
+public interface RowVersion {
+
+    Long getId();
+
+    Long getVersion();
+}
@@ -0,0 +1,72 @@
+package com.cristian.restapi.repository;
+
+import com.cristian.restapi.util.Fieldset;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Reads VOs with only the columns of a {@link Fieldset} in the select list. The VO is still built through its
+ * constructor expression, with a {@code null} literal in place of every column that was not asked for, so no
+ * other column is fetched.
+ */
+@Repository
+@Transactional(readOnly = true)
+public class SparseFieldsetQueries {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Fetches one extra row to know whether there is a next slice, without counting.
+     */
+    public <E, V> Slice<V> findSlice(VoProjection<E, V> projection, Fieldset fields, Pageable pageable) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<V> query = builder.createQuery(projection.vo());
+        Root<E> root = query.from(projection.entity());
+        query.select(select(builder, root, projection, fields));
+        query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, builder));
+
+        var content = entityManager.createQuery(query)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize() + 1)
+                .getResultList();
+        boolean hasNext = content.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? content.subList(0, pageable.getPageSize()) : content, pageable, hasNext);
+    }
+
+    public <E, V> Optional<V> findById(VoProjection<E, V> projection, Fieldset fields, Long id) {
+        return findAllById(projection, fields, List.of(id)).stream().findFirst();
+    }
+
+    public <E, V> List<V> findAllById(VoProjection<E, V> projection, Fieldset fields, Collection<Long> ids) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<V> query = builder.createQuery(projection.vo());
+        Root<E> root = query.from(projection.entity());
+        query.select(select(builder, root, projection, fields)).where(root.get("id").in(ids));
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    private static <E, V> Selection<V> select(CriteriaBuilder builder, Root<E> root, VoProjection<E, V> projection,
+                                              Fieldset fields) {
+        var arguments = projection.attributes().stream()
+                .map(attribute -> fields.includes(attribute)
+                        ? root.get(attribute)
+                        : builder.nullLiteral(root.get(attribute).getJavaType()))
+                .toArray(Selection[]::new);
+        return builder.construct(projection.vo(), arguments);
+    }
+}
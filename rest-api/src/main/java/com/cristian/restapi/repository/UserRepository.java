@@ -2,13 +2,20 @@ package com.cristian.restapi.repository;
 
 import com.cristian.restapi.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
 
     @Query("SELECT u FROM User u WHERE u.userName =:userName")
+    @Transactional(readOnly = true)
     User findByUsername(@Param("userName") String userName);
+
+    @Modifying
+    @Query("UPDATE User u SET u.password = :password WHERE u.userName =:userName")
+    void updatePassword(@Param("userName") String userName, @Param("password") String password);
 }
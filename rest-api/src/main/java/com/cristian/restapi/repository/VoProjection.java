@@ -0,0 +1,10 @@
+package com.cristian.restapi.repository;
+
+import java.util.List;
+
+/**
+ * How a VO is read straight from an entity: the attributes of {@code entity} passed, in order, to the constructor
+ * of {@code vo} that JPQL constructor expressions use.
+ */
+public record VoProjection<E, V>(Class<E> entity, Class<V> vo, List<String> attributes) {
+}
@@ -0,0 +1,151 @@
+package com.cristian.restapi.security.jwt;
+
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.cristian.restapi.service.UserChangedEvent;
+import com.cristian.restapi.service.UserService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the {@link Authentication} built for a bearer token until the token expires, so a token that is
+ * replayed on every request is only verified once. Entries are keyed by a SHA-256 digest of the token.
+ * <p>
+ * The cached authentication holds the user with its authorities and enabled flag as they were when the token was
+ * first seen, so the entries of a user are dropped when {@link UserService} reports it changed.
+ */
+@Component
+public class JwtAuthenticationCache {
+
+    private static final ThreadLocal<DigestBuffer> DIGEST_BUFFERS = ThreadLocal.withInitial(DigestBuffer::new);
+
+    private final JwtTokenProvider tokenProvider;
+    private final boolean enabled;
+    private final Cache<String, CachedAuthentication> cache;
+
+    @Autowired
+    public JwtAuthenticationCache(JwtTokenProvider tokenProvider,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${security.jwt.cache.enabled:true}") boolean enabled,
+                                  @Value("${security.jwt.cache.maximum-size:10000}") long maximumSize) {
+        this.tokenProvider = tokenProvider;
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new UntilTokenExpires())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "jwt.authentication");
+    }
+
+    public Authentication get(String token) {
+        return get(token, 0);
+    }
+
+    /**
+     * Same as {@link #get(String)} for the token starting at {@code offset} in {@code header}, typically the
+     * {@code Authorization} header. On a cache hit the token is never copied out of the header.
+     */
+    public Authentication get(String header, int offset) {
+        String digest = enabled ? digest(header, offset) : null;
+        CachedAuthentication cached = digest != null
+                ? cache.get(digest, key -> load(header.substring(offset)))
+                : load(header.substring(offset));
+        if (cached == null || tokenProvider.isRevoked(cached.username(), cached.tokenVersion())) return null;
+        return cached.authentication();
+    }
+
+    /**
+     * Drops the authentications of every token of {@code username}. Tokens are not indexed by user, so this scans
+     * the cache, which is fine for the rare changes to a user.
+     */
+    public void invalidate(String username) {
+        cache.asMap().values().removeIf(cached -> cached.username().equals(username));
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        if (event.username() == null) {
+            invalidateAll();
+        } else {
+            invalidate(event.username());
+        }
+    }
+
+    private CachedAuthentication load(String token) {
+        DecodedJWT decodedJWT = tokenProvider.decodedToken(token);
+        Authentication authentication = tokenProvider.getAuthentication(decodedJWT);
+        if (authentication == null) return null;
+        return new CachedAuthentication(authentication, decodedJWT.getSubject(),
+                JwtTokenProvider.tokenVersion(decodedJWT), decodedJWT.getExpiresAt().getTime());
+    }
+
+    private static String digest(String header, int offset) {
+        DigestBuffer buffer = DIGEST_BUFFERS.get();
+        int length = header.length() - offset;
+        if (buffer.bytes.length < length) buffer.bytes = new byte[Math.max(length, 2 * buffer.bytes.length)];
+        for (int i = 0; i < length; i++) {
+            char c = header.charAt(offset + i);
+            if (c > 0x7f) return null;
+            buffer.bytes[i] = (byte) c;
+        }
+        buffer.messageDigest.update(buffer.bytes, 0, length);
+        return Base64.getEncoder().withoutPadding().encodeToString(buffer.messageDigest.digest());
+    }
+
+    /**
+     * Per-thread digest and scratch buffer for the token characters, which are all ASCII in a valid JWT.
+     * Tokens with other characters are not cached.
+     */
+    private static class DigestBuffer {
+
+        private final MessageDigest messageDigest;
+        private byte[] bytes = new byte[1024];
+
+        private DigestBuffer() {
+            try {
+                messageDigest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 is not available", e);
+            }
+        }
+    }
+
+    private record CachedAuthentication(Authentication authentication, String username, int tokenVersion, long expiresAt) {
+    }
+
+    private static class UntilTokenExpires implements Expiry<String, CachedAuthentication> {
+
+        @Override
+        public long expireAfterCreate(String key, CachedAuthentication value, long currentTime) {
+            long remaining = value.expiresAt() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(remaining, 0));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, CachedAuthentication value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, CachedAuthentication value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -15,16 +15,19 @@ import java.io.IOException;
 public class JwtTokenFilter extends GenericFilterBean {
     @Autowired
     private final JwtTokenProvider tokenProvider;
+    private final JwtAuthenticationCache authenticationCache;
 
-    public JwtTokenFilter(JwtTokenProvider tokenProvider) {
+    public JwtTokenFilter(JwtTokenProvider tokenProvider, JwtAuthenticationCache authenticationCache) {
         this.tokenProvider = tokenProvider;
+        this.authenticationCache = authenticationCache;
     }
 
     @Override
     public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain filterChain) throws IOException, ServletException {
-        String token = tokenProvider.resolveToken((HttpServletRequest) servletRequest);
-        if (token != null && tokenProvider.validateToken(token)) {
-            Authentication auth = tokenProvider.getAuthentication(token);
+        String header = ((HttpServletRequest) servletRequest).getHeader("Authorization");
+        int offset = JwtTokenProvider.bearerTokenOffset(header);
+        if (offset > 0) {
+            Authentication auth = authenticationCache.get(header, offset);
             if (auth != null) {
                 SecurityContextHolder.getContext().setAuthentication(auth);
             }
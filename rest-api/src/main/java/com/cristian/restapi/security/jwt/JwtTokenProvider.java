@@ -7,15 +7,22 @@ import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.interfaces.DecodedJWT;
 import com.cristian.restapi.data.vo.v1.security.TokenVO;
 import com.cristian.restapi.exception.InvalidJwtAuthenticationException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import jakarta.annotation.PostConstruct;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.util.Base64;
@@ -24,20 +31,34 @@ import java.util.List;
 
 @Service
 public class JwtTokenProvider {
+
+    static final int REFRESH_VALIDITY_FACTOR = 3;
+    private static final String BEARER_PREFIX = "Bearer ";
+
     @Value("${security.jwt.token.secret-key:secret}")
     private String secretKey = "secret";
     @Value("${security.jwt.token.expire-length:3600000}")
     private final long validityInMilliseconds = 3600000;
 
+    @Value("${security.jwt.authentication-mode:database}")
+    private String authenticationMode = "database";
+
     @Autowired
     private UserDetailsService userDetailsService;
+    @Autowired
+    private TokenVersionRegistry tokenVersions;
+    @Autowired
+    private RefreshTokenStore refreshTokens;
 
     Algorithm algorithm = null;
+    private JWTVerifier verifier;
+    private final Cache<IssuerKey, String> issuers = Caffeine.newBuilder().maximumSize(64).build();
 
     @PostConstruct
     protected void init() {
         secretKey = Base64.getEncoder().encodeToString(secretKey.getBytes());
         algorithm = Algorithm.HMAC256(secretKey.getBytes());
+        verifier = JWT.require(algorithm).build();
     }
 
     public TokenVO createAccessToken(String username, List<String> roles) {
@@ -48,22 +69,28 @@ public class JwtTokenProvider {
         return new TokenVO(username, true, now, validity, accessToken, refreshToken);
     }
 
-    public TokenVO refreshToken(String refreshToken) {
-        if (refreshToken.contains("Bearer ")) refreshToken = refreshToken.substring("Bearer ".length());
+    /**
+     * Exchanges a refresh token for a new pair of tokens, using only the claims of the refresh token.
+     * Each refresh token is accepted once, see {@link RefreshTokenStore}.
+     */
+    public TokenVO refreshToken(String username, String refreshToken) {
+        int offset = bearerTokenOffset(refreshToken);
+        if (offset > 0) refreshToken = refreshToken.substring(offset);
 
-        JWTVerifier verifier = JWT.require(algorithm).build();
         DecodedJWT decodedJWT = decodedToken(refreshToken);
-        String username = decodedJWT.getSubject();
+        if (!decodedJWT.getSubject().equals(username)) throw new BadCredentialsException("Refresh token does not belong to " + username + ".");
         List<String> roles = decodedJWT.getClaim("roles").asList(String.class);
+        if (isRevoked(decodedJWT)) throw new BadCredentialsException("Refresh token has been revoked.");
+        refreshTokens.rotate(decodedJWT.getId(), username);
 
         return createAccessToken(username, roles);
     }
 
     private String getAccessToken(String username, List<String> roles, Date now, Date validity) {
-        String issuerUrl = ServletUriComponentsBuilder
-                .fromCurrentContextPath().build().toUriString();
+        String issuerUrl = currentIssuer();
         return JWT.create()
                 .withClaim("roles", roles)
+                .withClaim(TokenVersionRegistry.CLAIM, tokenVersions.current(username))
                 .withIssuedAt(now)
                 .withExpiresAt(validity)
                 .withSubject(username)
@@ -73,9 +100,11 @@ public class JwtTokenProvider {
     }
 
     private String getRefreshToken(String username, List<String> roles, Date now) {
-        Date validityRefreshToken = new Date(now.getTime() + (3 * validityInMilliseconds));
+        Date validityRefreshToken = new Date(now.getTime() + (REFRESH_VALIDITY_FACTOR * validityInMilliseconds));
         return JWT.create()
+                .withJWTId(refreshTokens.issue(username))
                 .withClaim("roles", roles)
+                .withClaim(TokenVersionRegistry.CLAIM, tokenVersions.current(username))
                 .withIssuedAt(now)
                 .withExpiresAt(validityRefreshToken)
                 .withSubject(username)
@@ -84,24 +113,71 @@ public class JwtTokenProvider {
     }
 
     public Authentication getAuthentication(String token) {
-        DecodedJWT decodedJWT = decodedToken(token);
-        UserDetails userDetails = this.userDetailsService
-                .loadUserByUsername(decodedJWT.getSubject());
+        return getAuthentication(decodedToken(token));
+    }
+
+    Authentication getAuthentication(DecodedJWT decodedJWT) {
+        if (isRevoked(decodedJWT)) return null;
+        UserDetails userDetails = "claims".equalsIgnoreCase(authenticationMode)
+                ? userDetailsFromClaims(decodedJWT)
+                : this.userDetailsService.loadUserByUsername(decodedJWT.getSubject());
         return new UsernamePasswordAuthenticationToken(userDetails, "", userDetails.getAuthorities());
     }
 
-    private DecodedJWT decodedToken(String token) {
-        Algorithm alg = Algorithm.HMAC256(secretKey.getBytes());
-        JWTVerifier verifier = JWT.require(alg).build();
+    private UserDetails userDetailsFromClaims(DecodedJWT decodedJWT) {
+        List<String> roles = decodedJWT.getClaim("roles").asList(String.class);
+        return User.withUsername(decodedJWT.getSubject())
+                .password("")
+                .authorities(roles == null ? new String[0] : roles.toArray(new String[0]))
+                .build();
+    }
+
+    boolean isRevoked(String username, int tokenVersion) {
+        return tokenVersions.isRevoked(username, tokenVersion);
+    }
+
+    static int tokenVersion(DecodedJWT decodedJWT) {
+        Integer version = decodedJWT.getClaim(TokenVersionRegistry.CLAIM).asInt();
+        return version == null ? 0 : version;
+    }
+
+    private boolean isRevoked(DecodedJWT decodedJWT) {
+        return isRevoked(decodedJWT.getSubject(), tokenVersion(decodedJWT));
+    }
+
+    /**
+     * The issuer is the context URL of the current request. It only depends on the scheme, host, port and
+     * context path, so it is built once per combination instead of once per token.
+     */
+    private String currentIssuer() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes servletAttributes)) {
+            return ServletUriComponentsBuilder.fromCurrentContextPath().build().toUriString();
+        }
+        HttpServletRequest request = servletAttributes.getRequest();
+        var key = new IssuerKey(request.getScheme(), request.getServerName(), request.getServerPort(), request.getContextPath());
+        return issuers.get(key, k -> ServletUriComponentsBuilder.fromContextPath(request).build().toUriString());
+    }
+
+    DecodedJWT decodedToken(String token) {
         return verifier.verify(token);
     }
 
     public String resolveToken(HttpServletRequest request) {
         String bearerToken = request.getHeader("Authorization");
-        if (bearerToken != null && bearerToken.startsWith("Bearer ")) {
-            return bearerToken.substring("Bearer ".length());
+        int offset = bearerTokenOffset(bearerToken);
+        return offset > 0 ? bearerToken.substring(offset) : null;
+    }
+
+    /**
+     * Returns where the token starts in an {@code Authorization} header value, or -1 if it is not a bearer token.
+     */
+    public static int bearerTokenOffset(String authorizationHeader) {
+        if (authorizationHeader != null && authorizationHeader.length() > BEARER_PREFIX.length()
+                && authorizationHeader.startsWith(BEARER_PREFIX)) {
+            return BEARER_PREFIX.length();
         }
-        return null;
+        return -1;
     }
 
     public boolean validateToken(String token) throws InvalidJwtAuthenticationException {
@@ -113,4 +189,6 @@ public class JwtTokenProvider {
         }
     }
 
+    private record IssuerKey(String scheme, String host, int port, String contextPath) {
+    }
 }
\ No newline at end of file
@@ -0,0 +1,145 @@
+package com.cristian.restapi.security.jwt;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.function.LongSupplier;
+import java.util.logging.Logger;
+
+/**
+ * In-memory record of the refresh tokens that have been issued and not used yet, keyed by their {@code jti}.
+ * A refresh token can be used once: {@link #rotate(String, String)} consumes it and the caller issues a new one.
+ * <p>
+ * Used ids are remembered until they would have expired, so presenting one again is detected as reuse of a
+ * stolen token, and every token of that user is revoked through the {@link TokenVersionRegistry}. The check
+ * goes through two generations of {@link BloomFilter}, each covering one refresh-token lifetime, so a token
+ * that was never used costs no lookup in the used-id map.
+ * <p>
+ * At most {@code security.jwt.refresh.max-active} unused tokens are kept. Past that the cache drops some of
+ * them, counted by {@code jwt.refresh.evicted}, and their users must sign in again.
+ * <p>
+ * Nothing is persisted: after a restart every refresh token is rejected and users must sign in again.
+ */
+@Component
+public class RefreshTokenStore {
+
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    private final Logger logger = Logger.getLogger(RefreshTokenStore.class.getName());
+
+    private final TokenVersionRegistry tokenVersions;
+    private final Cache<String, String> issued;
+    private final Cache<String, String> used;
+    private final int expectedRevocations;
+    private final long generationNanos;
+    private final LongSupplier clock;
+    private final Counter reuseCounter;
+    private final Counter evictionCounter;
+
+    private volatile BloomFilter currentGeneration;
+    private volatile BloomFilter previousGeneration;
+    private volatile long generationStart;
+
+    @Autowired
+    public RefreshTokenStore(TokenVersionRegistry tokenVersions,
+                             MeterRegistry meterRegistry,
+                             @Value("${security.jwt.token.expire-length:3600000}") long validityInMilliseconds,
+                             @Value("${security.jwt.refresh.expected-revocations:100000}") int expectedRevocations,
+                             @Value("${security.jwt.refresh.max-active:100000}") long maxActive) {
+        this(tokenVersions, meterRegistry,
+                Duration.ofMillis(JwtTokenProvider.REFRESH_VALIDITY_FACTOR * validityInMilliseconds),
+                expectedRevocations, maxActive, System::nanoTime);
+    }
+
+    public RefreshTokenStore(TokenVersionRegistry tokenVersions, MeterRegistry meterRegistry,
+                             Duration refreshValidity, int expectedRevocations, long maxActive, LongSupplier clock) {
+        this.tokenVersions = tokenVersions;
+        this.expectedRevocations = expectedRevocations;
+        this.generationNanos = refreshValidity.toNanos();
+        this.clock = clock;
+        this.evictionCounter = meterRegistry.counter("jwt.refresh.evicted");
+        this.issued = Caffeine.newBuilder()
+                .maximumSize(maxActive)
+                .expireAfterWrite(refreshValidity)
+                .ticker(clock::getAsLong)
+                // Evicts on the issuing thread, so the bound holds as soon as issue returns.
+                .executor(Runnable::run)
+                .<String, String>evictionListener((id, username, cause) -> {
+                    if (cause == RemovalCause.SIZE) {
+                        evictionCounter.increment();
+                        logger.fine("Refresh token dropped, more than " + maxActive + " are active: " + username);
+                    }
+                })
+                .build();
+        this.used = Caffeine.newBuilder()
+                .expireAfterWrite(refreshValidity)
+                .ticker(clock::getAsLong)
+                .build();
+        this.currentGeneration = new BloomFilter(expectedRevocations, FALSE_POSITIVE_RATE);
+        this.previousGeneration = new BloomFilter(expectedRevocations, FALSE_POSITIVE_RATE);
+        this.generationStart = clock.getAsLong();
+        this.reuseCounter = meterRegistry.counter("jwt.refresh.reuse");
+        Gauge.builder("jwt.refresh.active", issued, Cache::estimatedSize).register(meterRegistry);
+    }
+
+    /**
+     * Records a new refresh token for the user and returns its id.
+     */
+    public String issue(String username) {
+        String id = UUID.randomUUID().toString();
+        issued.put(id, username);
+        return id;
+    }
+
+    /**
+     * Consumes the refresh token with the given id.
+     *
+     * @throws BadCredentialsException if the id is unknown, expired or was already used
+     */
+    public void rotate(String id, String username) {
+        if (id == null) throw new BadCredentialsException("Refresh token is not valid.");
+        if (wasUsed(id)) {
+            logger.warning("Refresh token reused, revoking all tokens of user: " + username);
+            reuseCounter.increment();
+            tokenVersions.revoke(username);
+            throw new BadCredentialsException("Refresh token has already been used.");
+        }
+        String owner = issued.getIfPresent(id);
+        if (owner == null || !owner.equals(username) || !issued.asMap().remove(id, owner)) {
+            throw new BadCredentialsException("Refresh token is not valid.");
+        }
+        markUsed(id, username);
+    }
+
+    boolean wasUsed(String id) {
+        rollGeneration();
+        if (!currentGeneration.mightContain(id) && !previousGeneration.mightContain(id)) return false;
+        return used.getIfPresent(id) != null;
+    }
+
+    private void markUsed(String id, String username) {
+        used.put(id, username);
+        currentGeneration.put(id);
+    }
+
+    private void rollGeneration() {
+        if (clock.getAsLong() - generationStart < generationNanos) return;
+        synchronized (this) {
+            long now = clock.getAsLong();
+            if (now - generationStart < generationNanos) return;
+            previousGeneration = currentGeneration;
+            currentGeneration = new BloomFilter(expectedRevocations, FALSE_POSITIVE_RATE);
+            generationStart = now;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.cristian.restapi.security.jwt;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * In-memory token version per user. Every token carries the version current at issue time in its
+ * {@code ver} claim; {@link #revoke(String)} bumps the version, which invalidates every token issued before.
+ * Versions start at zero and are not persisted, so revocations do not survive a restart.
+ */
+@Component
+public class TokenVersionRegistry {
+
+    public static final String CLAIM = "ver";
+
+    private final ConcurrentMap<String, Integer> versions = new ConcurrentHashMap<>();
+
+    public int current(String username) {
+        return versions.getOrDefault(username, 0);
+    }
+
+    public int revoke(String username) {
+        return versions.merge(username, 1, Integer::sum);
+    }
+
+    public boolean isRevoked(String username, int tokenVersion) {
+        return tokenVersion < current(username);
+    }
+}
@@ -0,0 +1,245 @@
+package com.cristian.restapi.security.password;
+
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+import org.springframework.util.ClassUtils;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.logging.Logger;
+
+/**
+ * Builds the application {@link PasswordEncoder}, a {@link DelegatingPasswordEncoder}. When calibration is enabled, the cost of each
+ * algorithm is measured on the running host and raised or lowered until a single hash takes about
+ * {@code targetLatency}; otherwise the historical fixed costs are used.
+ * <p>
+ * PBKDF2 hashes do not record their iteration count, so calibrated PBKDF2 hashes are stored under the id
+ * {@code pbkdf2-<iterations>} and matched by {@link Pbkdf2IterationsEncoder}. BCrypt and Argon2 hashes carry
+ * their own parameters. Argon2 is only offered when BouncyCastle is on the classpath.
+ * <p>
+ * Calibration measures again at every start and lands on a slightly different cost each time, so a calibrated
+ * encoder does not re-hash a password just because its cost differs: only hashes of another algorithm, and hashes
+ * whose cost is below half of the calibrated one, are upgraded on login.
+ */
+public class PasswordEncoderCalibrator {
+
+    public static final String PBKDF2 = "pbkdf2";
+    public static final String BCRYPT = "bcrypt";
+    public static final String ARGON2 = "argon2";
+
+    static final int LEGACY_PBKDF2_ITERATIONS = 185000;
+
+    private static final int SAMPLES = 3;
+    private static final String SAMPLE_PASSWORD = "calibration-sample-password";
+
+    private final Logger logger = Logger.getLogger(PasswordEncoderCalibrator.class.getName());
+
+    private final boolean calibrate;
+    private final Duration targetLatency;
+
+    public PasswordEncoderCalibrator(boolean calibrate, Duration targetLatency) {
+        this.calibrate = calibrate;
+        this.targetLatency = targetLatency;
+    }
+
+    public PasswordEncoder create(String algorithm) {
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put(PBKDF2, pbkdf2(LEGACY_PBKDF2_ITERATIONS));
+
+        if (!calibrate) {
+            encoders.put(BCRYPT, new BCryptPasswordEncoder());
+            if (isArgon2Available()) encoders.put(ARGON2, Argon2PasswordEncoder.defaultsForSpringSecurity_v5_8());
+            return delegating(algorithm, PBKDF2, encoders, LEGACY_PBKDF2_ITERATIONS);
+        }
+
+        // Each floor is half the calibrated cost: BCrypt strength is the log2 of its rounds.
+        Map<String, Predicate<String>> belowFloor = new HashMap<>();
+        int iterations = calibratePbkdf2();
+        String pbkdf2Id = PBKDF2 + "-" + iterations;
+        encoders.put(pbkdf2Id, pbkdf2(iterations));
+        belowFloor.put(PBKDF2, hash -> Pbkdf2IterationsEncoder.iterationsOf(hash) < iterations / 2);
+
+        int strength = calibrateBcrypt();
+        encoders.put(BCRYPT, new BCryptPasswordEncoder(strength));
+        var bcryptFloor = new BCryptPasswordEncoder(strength - 1);
+        belowFloor.put(BCRYPT, hash -> bcryptFloor.upgradeEncoding(withoutId(hash)));
+
+        if (isArgon2Available()) {
+            int argon2Iterations = calibrateArgon2();
+            encoders.put(ARGON2, argon2(argon2Iterations));
+            var argon2Floor = argon2(Math.max(1, argon2Iterations / 2));
+            belowFloor.put(ARGON2, hash -> argon2Floor.upgradeEncoding(withoutId(hash)));
+        }
+
+        var passwordEncoder = delegating(algorithm, pbkdf2Id, encoders, iterations);
+        return new FloorUpgradingPasswordEncoder(passwordEncoder, algorithm, belowFloor.get(algorithm));
+    }
+
+    private DelegatingPasswordEncoder delegating(String algorithm, String pbkdf2Id, Map<String, PasswordEncoder> encoders,
+                                                 int pbkdf2Iterations) {
+        String idForEncode = PBKDF2.equals(algorithm) ? pbkdf2Id : algorithm;
+        if (!encoders.containsKey(idForEncode)) {
+            throw new IllegalStateException("Unsupported password algorithm: " + algorithm);
+        }
+        logger.info("Encoding new passwords with " + idForEncode);
+
+        DelegatingPasswordEncoder passwordEncoder = new DelegatingPasswordEncoder(idForEncode, encoders);
+        passwordEncoder.setDefaultPasswordEncoderForMatches(new Pbkdf2IterationsEncoder(pbkdf2Iterations));
+        return passwordEncoder;
+    }
+
+    private int calibratePbkdf2() {
+        int baseIterations = 10_000;
+        long nanos = measure(pbkdf2(baseIterations));
+        long iterations = Math.round(baseIterations * (double) targetLatency.toNanos() / nanos / 1000) * 1000;
+        int calibrated = (int) Math.max(baseIterations, Math.min(iterations, 10_000_000));
+        logger.info("PBKDF2 calibrated to " + calibrated + " iterations for " + targetLatency.toMillis() + "ms");
+        return calibrated;
+    }
+
+    private int calibrateBcrypt() {
+        int strength = 8;
+        while (strength < 16 && measure(new BCryptPasswordEncoder(strength + 1)) <= targetLatency.toNanos()) {
+            strength++;
+        }
+        logger.info("BCrypt calibrated to strength " + strength + " for " + targetLatency.toMillis() + "ms");
+        return strength;
+    }
+
+    private int calibrateArgon2() {
+        long nanos = measure(argon2(1));
+        int iterations = (int) Math.max(1, Math.min(targetLatency.toNanos() / nanos, 100));
+        logger.info("Argon2 calibrated to " + iterations + " iterations for " + targetLatency.toMillis() + "ms");
+        return iterations;
+    }
+
+    private static long measure(PasswordEncoder encoder) {
+        encoder.encode(SAMPLE_PASSWORD);
+        long[] samples = new long[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            encoder.encode(SAMPLE_PASSWORD);
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        return Math.max(1, samples[SAMPLES / 2]);
+    }
+
+    private static boolean isArgon2Available() {
+        return ClassUtils.isPresent("org.bouncycastle.crypto.params.Argon2Parameters", null);
+    }
+
+    private static Pbkdf2PasswordEncoder pbkdf2(int iterations) {
+        return new Pbkdf2PasswordEncoder("", 8, iterations, Pbkdf2PasswordEncoder.SecretKeyFactoryAlgorithm.PBKDF2WithHmacSHA256);
+    }
+
+    private static Argon2PasswordEncoder argon2(int iterations) {
+        return new Argon2PasswordEncoder(16, 32, 1, 1 << 14, iterations);
+    }
+
+    /**
+     * The algorithm of a {@code {id}hash}: {@code pbkdf2-<iterations>} ids are PBKDF2. {@code null} for the
+     * original unprefixed hashes.
+     */
+    private static String algorithmOf(String encodedPassword) {
+        if (encodedPassword == null || !encodedPassword.startsWith("{")) return null;
+        int end = encodedPassword.indexOf('}');
+        if (end < 0) return null;
+        String id = encodedPassword.substring(1, end);
+        return id.startsWith(PBKDF2 + "-") ? PBKDF2 : id;
+    }
+
+    private static String withoutId(String encodedPassword) {
+        return encodedPassword.substring(encodedPassword.indexOf('}') + 1);
+    }
+
+    /**
+     * Wraps the {@link DelegatingPasswordEncoder} of a calibrated run: upgrades a hash on login when it is of
+     * another algorithm than new passwords, or when {@code belowFloor} finds its cost too low.
+     */
+    static class FloorUpgradingPasswordEncoder implements PasswordEncoder {
+
+        private final PasswordEncoder delegate;
+        private final String algorithm;
+        private final Predicate<String> belowFloor;
+
+        FloorUpgradingPasswordEncoder(PasswordEncoder delegate, String algorithm, Predicate<String> belowFloor) {
+            this.delegate = delegate;
+            this.algorithm = algorithm;
+            this.belowFloor = belowFloor;
+        }
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            return delegate.encode(rawPassword);
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String prefixEncodedPassword) {
+            return delegate.matches(rawPassword, prefixEncodedPassword);
+        }
+
+        @Override
+        public boolean upgradeEncoding(String prefixEncodedPassword) {
+            if (prefixEncodedPassword == null) return false;
+            return !algorithm.equals(algorithmOf(prefixEncodedPassword)) || belowFloor.test(prefixEncodedPassword);
+        }
+    }
+
+    /**
+     * Matches hashes with an unknown id: {@code {pbkdf2-<iterations>}} hashes calibrated on an earlier run,
+     * and the original unprefixed hashes, which use {@value #LEGACY_PBKDF2_ITERATIONS} iterations. Encodes as
+     * {@code {pbkdf2-<iterations>}} with the iterations it was created with, so it can match what it encodes.
+     */
+    static class Pbkdf2IterationsEncoder implements PasswordEncoder {
+
+        private static final String PREFIX = "{" + PBKDF2 + "-";
+
+        private final Map<Integer, Pbkdf2PasswordEncoder> encoders = new ConcurrentHashMap<>();
+        private final int iterations;
+
+        Pbkdf2IterationsEncoder(int iterations) {
+            this.iterations = iterations;
+        }
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            return PREFIX + iterations + "}" + encoder(iterations).encode(rawPassword);
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            if (encodedPassword == null) return false;
+            int iterations = iterationsOf(encodedPassword);
+            if (iterations < 1) return false;
+            return encoder(iterations).matches(rawPassword, withoutId(encodedPassword));
+        }
+
+        /**
+         * The iterations of a PBKDF2 hash, {@value #LEGACY_PBKDF2_ITERATIONS} without an id or with the plain
+         * {@code {pbkdf2}} one, and {@code -1} for any other id.
+         */
+        static int iterationsOf(String encodedPassword) {
+            if (!encodedPassword.startsWith("{") || encodedPassword.startsWith("{" + PBKDF2 + "}")) {
+                return LEGACY_PBKDF2_ITERATIONS;
+            }
+            if (!encodedPassword.startsWith(PREFIX)) return -1;
+            try {
+                return Integer.parseInt(encodedPassword.substring(PREFIX.length(), encodedPassword.indexOf('}')));
+            } catch (NumberFormatException | IndexOutOfBoundsException e) {
+                return -1;
+            }
+        }
+
+        private Pbkdf2PasswordEncoder encoder(int iterations) {
+            return encoders.computeIfAbsent(iterations, PasswordEncoderCalibrator::pbkdf2);
+        }
+    }
+}
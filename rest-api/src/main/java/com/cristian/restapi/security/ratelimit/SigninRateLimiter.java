@@ -0,0 +1,146 @@
+package com.cristian.restapi.security.ratelimit;
+
+import com.cristian.restapi.exception.TooManyRequestsException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Token buckets per username and per client address, checked before any password is hashed. A sign-in that
+ * succeeds gets its username token back, so only failed attempts lock an account out.
+ * Buckets are guarded by a fixed set of striped locks and dropped after being idle for {@code idle-timeout}.
+ * <p>
+ * The client address is the one Tomcat reports, taken from {@code X-Forwarded-For} for requests from a trusted
+ * proxy, see {@code server.forward-headers-strategy}. Without it, all clients behind a gateway share one bucket.
+ */
+@Component
+public class SigninRateLimiter {
+
+    private static final int STRIPES = 64;
+
+    private final boolean enabled;
+    private final int usernameCapacity;
+    private final long usernameRefillNanos;
+    private final int addressCapacity;
+    private final long addressRefillNanos;
+    private final LongSupplier clock;
+    private final Cache<String, TokenBucket> buckets;
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public SigninRateLimiter(MeterRegistry meterRegistry,
+                             @Value("${security.signin.rate-limit.enabled:true}") boolean enabled,
+                             @Value("${security.signin.rate-limit.username.capacity:5}") int usernameCapacity,
+                             @Value("${security.signin.rate-limit.username.refill-period:1m}") Duration usernameRefillPeriod,
+                             @Value("${security.signin.rate-limit.address.capacity:20}") int addressCapacity,
+                             @Value("${security.signin.rate-limit.address.refill-period:1m}") Duration addressRefillPeriod,
+                             @Value("${security.signin.rate-limit.idle-timeout:10m}") Duration idleTimeout) {
+        this(meterRegistry, enabled, usernameCapacity, usernameRefillPeriod, addressCapacity, addressRefillPeriod,
+                idleTimeout, System::nanoTime);
+    }
+
+    public SigninRateLimiter(MeterRegistry meterRegistry, boolean enabled,
+                             int usernameCapacity, Duration usernameRefillPeriod,
+                             int addressCapacity, Duration addressRefillPeriod,
+                             Duration idleTimeout, LongSupplier clock) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.usernameCapacity = usernameCapacity;
+        this.usernameRefillNanos = usernameRefillPeriod.toNanos();
+        this.addressCapacity = addressCapacity;
+        this.addressRefillNanos = addressRefillPeriod.toNanos();
+        this.clock = clock;
+        this.buckets = Caffeine.newBuilder()
+                .expireAfterAccess(idleTimeout)
+                .maximumSize(100_000)
+                .ticker(clock::getAsLong)
+                .build();
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Takes one token from the address bucket and one from the username bucket, or none when either is empty.
+     *
+     * @throws TooManyRequestsException if either bucket is empty
+     */
+    public void acquire(String username, String clientAddress) {
+        if (!enabled) return;
+        long now = clock.getAsLong();
+        String addressKey = clientAddress == null ? null : addressKey(clientAddress);
+        String usernameKey = username == null ? null : usernameKey(username);
+        TokenBucket address = addressKey == null ? null
+                : buckets.get(addressKey, k -> new TokenBucket(addressCapacity, addressRefillNanos, now));
+        TokenBucket user = usernameKey == null ? null
+                : buckets.get(usernameKey, k -> new TokenBucket(usernameCapacity, usernameRefillNanos, now));
+
+        long addressWait;
+        long usernameWait;
+        int first = stripe(addressKey);
+        int second = stripe(usernameKey);
+        if (first > second) {
+            int swap = first;
+            first = second;
+            second = swap;
+        }
+        locks[first].lock();
+        if (second != first) locks[second].lock();
+        try {
+            addressWait = address == null ? 0 : address.nanosUntilNextToken(now);
+            usernameWait = user == null ? 0 : user.nanosUntilNextToken(now);
+            if (addressWait == 0 && usernameWait == 0) {
+                if (address != null) address.tryConsume(now);
+                if (user != null) user.tryConsume(now);
+                return;
+            }
+        } finally {
+            if (second != first) locks[second].unlock();
+            locks[first].unlock();
+        }
+
+        meterRegistry.counter("signin.rate-limit.rejected", "key", addressWait > 0 ? "address" : "username").increment();
+        long waitNanos = Math.max(addressWait, usernameWait);
+        long retryAfterSeconds = Math.max(1, (long) Math.ceil(waitNanos / (double) TimeUnit.SECONDS.toNanos(1)));
+        throw new TooManyRequestsException("Too many sign-in attempts, please try again later.", retryAfterSeconds);
+    }
+
+    /**
+     * Gives back the username token of a sign-in that succeeded, so only failed attempts count against an account.
+     */
+    public void refund(String username) {
+        if (!enabled || username == null) return;
+        String key = usernameKey(username);
+        TokenBucket bucket = buckets.getIfPresent(key);
+        if (bucket == null) return;
+        ReentrantLock lock = locks[stripe(key)];
+        lock.lock();
+        try {
+            bucket.refund(clock.getAsLong());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static String addressKey(String clientAddress) {
+        return "address:" + clientAddress;
+    }
+
+    private static String usernameKey(String username) {
+        return "username:" + username.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static int stripe(String key) {
+        return key == null ? 0 : (key.hashCode() & 0x7fffffff) % STRIPES;
+    }
+}
@@ -0,0 +1,45 @@
+package com.cristian.restapi.security.ratelimit;
+
+/**
+ * Classic token bucket refilled continuously at {@code capacity} tokens per {@code refillPeriodNanos}.
+ * Not thread-safe: callers must hold the lock that guards the bucket.
+ */
+class TokenBucket {
+
+    private final double capacity;
+    private final double tokensPerNano;
+    private double tokens;
+    private long lastRefill;
+
+    TokenBucket(int capacity, long refillPeriodNanos, long now) {
+        this.capacity = capacity;
+        this.tokensPerNano = (double) capacity / refillPeriodNanos;
+        this.tokens = capacity;
+        this.lastRefill = now;
+    }
+
+    boolean tryConsume(long now) {
+        refill(now);
+        if (tokens < 1) return false;
+        tokens -= 1;
+        return true;
+    }
+
+    void refund(long now) {
+        refill(now);
+        tokens = Math.min(capacity, tokens + 1);
+    }
+
+    long nanosUntilNextToken(long now) {
+        refill(now);
+        return tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / tokensPerNano);
+    }
+
+    private void refill(long now) {
+        long elapsed = now - lastRefill;
+        if (elapsed > 0) {
+            tokens = Math.min(capacity, tokens + elapsed * tokensPerNano);
+            lastRefill = now;
+        }
+    }
+}
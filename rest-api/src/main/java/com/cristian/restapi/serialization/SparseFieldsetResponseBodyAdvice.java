@@ -0,0 +1,39 @@
+package com.cristian.restapi.serialization;
+
+import com.cristian.restapi.util.Fieldset;
+import com.fasterxml.jackson.databind.ser.FilterProvider;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.AbstractMappingJacksonResponseBodyAdvice;
+
+/**
+ * Applies the {@code fields} parameter of GET requests to the VOs annotated with
+ * {@code @JsonFilter(Fieldset.FILTER_ID)}, in every format written by Jackson: JSON, HAL, XML and YAML. Every
+ * other response gets a filter that keeps all properties, as Jackson refuses to write those VOs without one.
+ */
+@ControllerAdvice
+public class SparseFieldsetResponseBodyAdvice extends AbstractMappingJacksonResponseBodyAdvice {
+
+    private static final FilterProvider SERIALIZE_ALL = new SimpleFilterProvider()
+            .addFilter(Fieldset.FILTER_ID, SimpleBeanPropertyFilter.serializeAll());
+
+    @Override
+    protected void beforeBodyWriteInternal(MappingJacksonValue bodyContainer, MediaType contentType,
+                                           MethodParameter returnType, ServerHttpRequest request,
+                                           ServerHttpResponse response) {
+        var fields = Fieldset.ALL;
+        if (HttpMethod.GET.equals(request.getMethod()) && request instanceof ServletServerHttpRequest servletRequest) {
+            fields = Fieldset.parse(servletRequest.getServletRequest().getParameter(Fieldset.PARAMETER));
+        }
+        bodyContainer.setFilters(fields.isAll() ? SERIALIZE_ALL : new SimpleFilterProvider()
+                .addFilter(Fieldset.FILTER_ID, SimpleBeanPropertyFilter.filterOutAllExcept(fields.serializedNames())));
+    }
+}
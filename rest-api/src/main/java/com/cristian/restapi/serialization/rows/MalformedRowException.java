@@ -0,0 +1,19 @@
+package com.cristian.restapi.serialization.rows;
+
+import java.io.IOException;
+
+public class MalformedRowException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long line;
+
+    public MalformedRowException(long line, String message) {
+        super(message);
+        this.line = line;
+    }
+
+    public long getLine() {
+        return line;
+    }
+}
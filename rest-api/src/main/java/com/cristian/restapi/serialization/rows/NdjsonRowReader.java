@@ -0,0 +1,56 @@
+package com.cristian.restapi.serialization.rows;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * One JSON object per line. Blank lines are skipped; values that are not strings are read as their JSON text.
+ */
+public class NdjsonRowReader implements RowReader {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final BufferedReader reader;
+    private long line;
+
+    public NdjsonRowReader(InputStream in) {
+        this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public Row next() throws IOException {
+        String text;
+        while ((text = reader.readLine()) != null) {
+            line++;
+            if (text.isBlank()) continue;
+            JsonNode node;
+            try {
+                node = MAPPER.readTree(text);
+            } catch (JsonProcessingException e) {
+                throw new MalformedRowException(line, "Invalid JSON: " + e.getOriginalMessage());
+            }
+            if (!node.isObject()) throw new MalformedRowException(line, "Expected a JSON object.");
+            Map<String, String> values = new HashMap<>();
+            node.fields().forEachRemaining(field -> {
+                JsonNode value = field.getValue();
+                if (!value.isNull()) values.put(field.getKey(), value.isValueNode() ? value.asText() : value.toString());
+            });
+            return new Row(line, values);
+        }
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,53 @@
+package com.cristian.restapi.serialization.rows;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * One JSON object per line, keyed by the column names.
+ */
+public class NdjsonRowWriter implements RowWriter {
+
+    private static final JsonFactory JSON_FACTORY = JsonFactory.builder()
+            .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+            .build();
+
+    private final JsonGenerator generator;
+    private final List<String> columns;
+
+    public NdjsonRowWriter(OutputStream out, List<String> columns) throws IOException {
+        this.generator = JSON_FACTORY.createGenerator(out);
+        this.generator.setRootValueSeparator(null);
+        this.columns = columns;
+    }
+
+    @Override
+    public void write(Object... values) throws IOException {
+        generator.writeStartObject();
+        for (int i = 0; i < columns.size(); i++) {
+            generator.writeFieldName(columns.get(i));
+            switch (values[i]) {
+                case null -> generator.writeNull();
+                case Long value -> generator.writeNumber(value);
+                case Integer value -> generator.writeNumber(value);
+                case Double value -> generator.writeNumber(value);
+                case Boolean value -> generator.writeBoolean(value);
+                case Date value -> generator.writeString(RowWriter.formatDate(value));
+                default -> generator.writeString(values[i].toString());
+            }
+        }
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    @Override
+    public void close() throws IOException {
+        generator.close();
+    }
+}
@@ -0,0 +1,61 @@
+package com.cristian.restapi.serialization.rows;
+
+import com.cristian.restapi.exception.InvalidRequestParameterException;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * One row read by a {@link RowReader}, with the line of the upload it starts on. Missing and empty values are
+ * {@code null}. The typed getters throw {@link InvalidRequestParameterException} for values that do not parse.
+ */
+public record Row(long line, Map<String, String> values) {
+
+    public String optional(String column) {
+        return values.get(column);
+    }
+
+    public String required(String column, int maxLength) {
+        String value = values.get(column);
+        if (value == null || value.isBlank()) throw new InvalidRequestParameterException(column + " is required.");
+        if (value.length() > maxLength) {
+            throw new InvalidRequestParameterException(column + " is longer than " + maxLength + " characters.");
+        }
+        return value;
+    }
+
+    public boolean booleanValue(String column, boolean defaultValue) {
+        String value = values.get(column);
+        if (value == null) return defaultValue;
+        if (value.equalsIgnoreCase("true")) return true;
+        if (value.equalsIgnoreCase("false")) return false;
+        throw new InvalidRequestParameterException(column + " must be true or false.");
+    }
+
+    public double requiredDouble(String column) {
+        String value = required(column, Integer.MAX_VALUE);
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new InvalidRequestParameterException(column + " is not a number: " + value);
+        }
+    }
+
+    /**
+     * Accepts an ISO-8601 instant, as written by {@link RowWriter#formatDate(Date)}, or an ISO-8601 date.
+     */
+    public Date requiredDate(String column) {
+        String value = required(column, Integer.MAX_VALUE);
+        try {
+            return Date.from(value.length() > 10
+                    ? Instant.parse(value)
+                    : LocalDate.parse(value).atStartOfDay(ZoneOffset.UTC).toInstant());
+        } catch (DateTimeParseException e) {
+            throw new InvalidRequestParameterException(column + " is not an ISO-8601 date: " + value);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.cristian.restapi.serialization.rows;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Reads table rows from an input stream one at a time, so an upload is never held in memory as a whole.
+ */
+public interface RowReader extends Closeable {
+
+    /**
+     * Returns the next row, or {@code null} at the end of the input.
+     *
+     * @throws MalformedRowException if the next row cannot be parsed; reading can go on with the row after it
+     */
+    Row next() throws IOException;
+}
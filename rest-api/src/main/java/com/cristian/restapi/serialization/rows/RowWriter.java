@@ -0,0 +1,26 @@
+package com.cristian.restapi.serialization.rows;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+
+/**
+ * Writes table rows to an output stream as they are produced, with the values in the order of the columns the
+ * writer was created with.
+ */
+public interface RowWriter extends Closeable {
+
+    void write(Object... values) throws IOException;
+
+    /**
+     * Flushes the rows still buffered. The output stream is left open.
+     */
+    @Override
+    void close() throws IOException;
+
+    static String formatDate(Date date) {
+        return DateTimeFormatter.ISO_INSTANT.format(Instant.ofEpochMilli(date.getTime()));
+    }
+}
@@ -2,8 +2,10 @@ package com.cristian.restapi.service;
 
 import com.cristian.restapi.data.vo.v1.security.AccountCredentialVO;
 import com.cristian.restapi.data.vo.v1.security.TokenVO;
-import com.cristian.restapi.repository.UserRepository;
+import com.cristian.restapi.exception.TooManyRequestsException;
+import com.cristian.restapi.model.User;
 import com.cristian.restapi.security.jwt.JwtTokenProvider;
+import com.cristian.restapi.security.ratelimit.SigninRateLimiter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -21,24 +23,27 @@ public class AuthService {
     @Autowired
     private JwtTokenProvider tokenProvider;
     @Autowired
-    private UserRepository repository;
+    private SigninRateLimiter rateLimiter;
 
     @SuppressWarnings("rawtypes")
-    public ResponseEntity signin(AccountCredentialVO data) {
+    public ResponseEntity signin(AccountCredentialVO data, String clientAddress) {
+        rateLimiter.acquire(data.getUsername(), clientAddress);
         try {
             var username = data.getUsername();
             var password = data.getPassword();
-            authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(username, password));
+            var authentication = authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(username, password));
 
-            var user = repository.findByUsername(username);
             var tokenResponse = new TokenVO();
 
-            if (user != null) {
+            if (authentication.getPrincipal() instanceof User user) {
                 tokenResponse = tokenProvider.createAccessToken(username, user.getRoles());
             } else {
                 throw new UsernameNotFoundException("Username " + username + " not found.");
             }
+            rateLimiter.refund(username);
             return ResponseEntity.ok(tokenResponse);
+        } catch (TooManyRequestsException e) {
+            throw e;
         } catch (Exception e) {
             System.out.println(e.getMessage());
             throw new BadCredentialsException("Invalid username/password supplied.");
@@ -47,14 +52,7 @@ public class AuthService {
 
     @SuppressWarnings("rawtypes")
     public ResponseEntity refreshToken(String username, String refreshToken) {
-        var user = repository.findByUsername(username);
-        var tokenResponse = new TokenVO();
-
-        if (user != null) {
-            tokenResponse = tokenProvider.refreshToken(refreshToken);
-        } else {
-            throw new UsernameNotFoundException("Username " + username + " not found.");
-        }
+        var tokenResponse = tokenProvider.refreshToken(username, refreshToken);
         return ResponseEntity.ok(tokenResponse);
 
     }
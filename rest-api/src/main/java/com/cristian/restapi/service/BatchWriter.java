@@ -0,0 +1,141 @@
+package com.cristian.restapi.service;
+
+import com.cristian.restapi.data.vo.v1.BatchItemResultVO;
+import com.cristian.restapi.exception.InvalidRequestParameterException;
+import jakarta.persistence.CacheStoreMode;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+/**
+ * Inserts many entities with one transaction per chunk of {@code batch.chunk-size} entities, which Hibernate
+ * sends as JDBC batches of {@code hibernate.jdbc.batch_size} statements. This only batches entities whose ids
+ * are allocated by a pooled generator, see {@link com.cristian.restapi.config.IdAllocationConfig}: with
+ * {@code IDENTITY} every insert has to run on its own.
+ * <p>
+ * When a chunk fails it is saved again one entity per transaction, so a bad item only fails itself.
+ */
+@Component
+public class BatchWriter {
+
+    private final Logger logger = Logger.getLogger(BatchWriter.class.getName());
+
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final int maxItems;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    public BatchWriter(PlatformTransactionManager transactionManager, @Value("${batch.chunk-size:500}") int chunkSize,
+                       @Value("${batch.max-items:5000}") int maxItems) {
+        if (chunkSize < 1) throw new IllegalArgumentException("batch.chunk-size must be at least 1");
+        if (maxItems < 1) throw new IllegalArgumentException("batch.max-items must be at least 1");
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.maxItems = maxItems;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Saves one entity per item, built by {@code toEntity} without an id, and returns one result per item in the
+     * same order. A {@code null} item, or one for which {@code toEntity} throws
+     * {@link InvalidRequestParameterException}, is reported as rejected.
+     *
+     * @throws InvalidRequestParameterException with more than {@code batch.max-items} items; larger loads belong
+     *                                          to the streaming {@code /import} endpoints
+     */
+    public <V, E> List<BatchItemResultVO> saveAll(List<V> items, Function<V, E> toEntity,
+                                                  JpaRepository<E, Long> repository, Function<E, Long> idOf) {
+        if (items.size() > maxItems) {
+            throw new InvalidRequestParameterException("A batch holds at most " + maxItems + " items, use /import for more.");
+        }
+        List<BatchItemResultVO> results = new ArrayList<>(items.size());
+        for (int chunkStart = 0; chunkStart < items.size(); chunkStart += chunkSize) {
+            var chunk = items.subList(chunkStart, Math.min(chunkStart + chunkSize, items.size()));
+            saveChunk(chunk, chunkStart, toEntity, repository, idOf, results);
+        }
+        return results;
+    }
+
+    private <V, E> void saveChunk(List<V> chunk, int chunkStart, Function<V, E> toEntity, JpaRepository<E, Long> repository,
+                                  Function<E, Long> idOf, List<BatchItemResultVO> results) {
+        List<E> entities = new ArrayList<>(chunk.size());
+        BatchItemResultVO[] rejected = new BatchItemResultVO[chunk.size()];
+        for (int i = 0; i < chunk.size(); i++) {
+            V item = chunk.get(i);
+            if (item == null) {
+                entities.add(null);
+                rejected[i] = rejectedNull(chunkStart + i);
+                continue;
+            }
+            try {
+                entities.add(toEntity.apply(item));
+            } catch (InvalidRequestParameterException e) {
+                entities.add(null);
+                rejected[i] = new BatchItemResultVO(chunkStart + i, HttpStatus.BAD_REQUEST.value(), null, e.getMessage());
+            }
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                bypassSecondLevelCache();
+                repository.saveAll(entities.stream().filter(Objects::nonNull).toList());
+            });
+        } catch (RuntimeException e) {
+            logger.warning("Batch chunk starting at item " + chunkStart + " failed, saving its items one by one: "
+                    + NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+            // The failed entities may hold ids of the rolled back chunk, so each item is mapped again.
+            for (int i = 0; i < chunk.size(); i++) {
+                results.add(rejected[i] != null ? rejected[i] : saveOne(chunk.get(i), chunkStart + i, toEntity, repository, idOf));
+            }
+            return;
+        }
+        for (int i = 0; i < chunk.size(); i++) {
+            results.add(rejected[i] != null
+                    ? rejected[i]
+                    : new BatchItemResultVO(chunkStart + i, HttpStatus.CREATED.value(), idOf.apply(entities.get(i)), null));
+        }
+    }
+
+    private <V, E> BatchItemResultVO saveOne(V item, int index, Function<V, E> toEntity,
+                                             JpaRepository<E, Long> repository, Function<E, Long> idOf) {
+        try {
+            E saved = transactionTemplate.execute(status -> {
+                bypassSecondLevelCache();
+                return repository.save(toEntity.apply(item));
+            });
+            return new BatchItemResultVO(index, HttpStatus.CREATED.value(), idOf.apply(saved), null);
+        } catch (DataIntegrityViolationException e) {
+            return new BatchItemResultVO(index, HttpStatus.BAD_REQUEST.value(), null, NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+        } catch (RuntimeException e) {
+            return new BatchItemResultVO(index, HttpStatus.INTERNAL_SERVER_ERROR.value(), null, NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+        }
+    }
+
+    // Thousands of fresh rows would only push the entries that are actually read out of the entity regions.
+    private void bypassSecondLevelCache() {
+        entityManager.setProperty("jakarta.persistence.cache.storeMode", CacheStoreMode.BYPASS);
+    }
+
+    private static BatchItemResultVO rejectedNull(int index) {
+        return new BatchItemResultVO(index, HttpStatus.BAD_REQUEST.value(), null, "It is not allowed to persist a null object!");
+    }
+}
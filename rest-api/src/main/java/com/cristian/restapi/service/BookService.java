@@ -1,19 +1,51 @@
 package com.cristian.restapi.service;
 
 import com.cristian.restapi.controller.BookController;
+import com.cristian.restapi.data.vo.v1.BatchItemResultVO;
 import com.cristian.restapi.data.vo.v1.BookVO;
+import com.cristian.restapi.data.vo.v1.ImportReportVO;
+import com.cristian.restapi.data.vo.v1.MultiGetItemVO;
+import com.cristian.restapi.exception.PreconditionFailedException;
+import com.cristian.restapi.exception.RequiredObjectIsNullException;
 import com.cristian.restapi.exception.ResourceNotFoundException;
 import com.cristian.restapi.mapper.DozerMapper;
 import com.cristian.restapi.model.Book;
 import com.cristian.restapi.repository.BookRepository;
+import com.cristian.restapi.repository.SparseFieldsetQueries;
+import com.cristian.restapi.serialization.rows.Row;
+import com.cristian.restapi.util.CountMode;
+import com.cristian.restapi.util.ETags;
+import com.cristian.restapi.util.Fieldset;
+import com.cristian.restapi.util.IdBatches;
+import com.cristian.restapi.util.KeysetCursor;
+import com.cristian.restapi.util.RowFormat;
+import com.cristian.restapi.util.Tagged;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PagedResourcesAssembler;
+import org.springframework.data.web.SlicedResourcesAssembler;
+import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
 import org.springframework.hateoas.Link;
-import org.springframework.hateoas.PagedModel;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
 import java.util.logging.Logger;
 
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
@@ -30,57 +62,254 @@ public class BookService {
     @Autowired
     PagedResourcesAssembler<BookVO> assembler;
 
+    @Autowired
+    SlicedResourcesAssembler<BookVO> slicedAssembler;
+
+    @Autowired
+    TotalCountCache totalCounts;
+
+    @Autowired
+    BatchWriter batchWriter;
+
+    @Autowired
+    RowImporter importer;
+
+    @Autowired
+    SparseFieldsetQueries sparseFieldsets;
+
+    @Autowired
+    SingleFlight singleFlight;
+
+    static final List<String> EXPORT_COLUMNS = List.of("id", "author", "title", "launchDate", "price");
+
+    static final String TOTAL_COUNT_KEY = "books";
+
 
-    public PagedModel<EntityModel<BookVO>> findAll(Pageable pageable) {
+    /**
+     * Lists books with their ETag, see {@link PersonService#findAll(Pageable, CountMode, Fieldset, String, Predicate)}.
+     */
+    @Transactional(readOnly = true)
+    public Tagged<CollectionModel<EntityModel<BookVO>>> findAll(Pageable pageable, CountMode countMode, Fieldset fields,
+                                                                String variant, Predicate<String> notModified) {
         logger.info("Finding all books");
+        fields.requireKnown(BookRepository.VO_PROJECTION.attributes());
 
+        var versions = repository.findSliceOfVersions(pageable);
+        Long total = switch (countMode) {
+            case EXACT -> repository.count();
+            case CACHED -> totalCounts.get(TOTAL_COUNT_KEY, repository::count);
+            case NONE -> null;
+        };
+        List<Object> parts = new ArrayList<>(Arrays.asList("book", pageable, countMode, fields.value(), variant,
+                versions.hasNext(), total));
+        versions.forEach(row -> parts.add(row.getId() + ":" + row.getVersion()));
+        String etag = ETags.of(parts.toArray());
+        if (notModified.test(etag)) return new Tagged<>(null, etag);
 
-        var bookPage = repository.findAll(pageable);
+        Link link = linkTo(methodOn(BookController.class).findAll(pageable.getPageNumber(), pageable.getPageSize(), "Asc",
+                countMode.value(), fields.value(), null)).withSelfRel();
 
-        var bookVOPage = bookPage.map(b -> DozerMapper.parseObject(b, BookVO.class));
-        bookVOPage.map(b -> b.add(linkTo(methodOn(BookController.class).findById(b.getKey())).withSelfRel()));
+        Slice<BookVO> bookSlice = fields.isAll()
+                ? repository.findSliceOfVOs(pageable).map(this::addLinks)
+                : sparseFieldsets.findSlice(BookRepository.VO_PROJECTION, fields, pageable).map(vo -> addLinks(vo, fields));
+        CollectionModel<EntityModel<BookVO>> books = total == null
+                ? slicedAssembler.toModel(bookSlice, link)
+                : assembler.toModel(new PageImpl<>(bookSlice.getContent(), pageable, total), link);
+        return new Tagged<>(books, etag);
+    }
+
+    /**
+     * Cursor mode of {@link #findAll(Pageable, CountMode, Fieldset, String, Predicate)}, see {@link PersonService#findAllAfter(String, int, Sort.Direction)}.
+     */
+    @Transactional(readOnly = true)
+    public CollectionModel<EntityModel<BookVO>> findAllAfter(String after, int size, Sort.Direction direction) {
+        logger.info("Finding all books after cursor");
+        KeysetCursor.requirePageSize(size);
+
+        var cursor = KeysetCursor.decode(after);
+        var sort = Sort.by(direction, "title", "id");
+        var window = repository.findBy(KeysetCursor.scrollPosition(cursor, "title"), sort, Limit.of(size));
+
+        var bookVos = window.map(b -> EntityModel.of(addLinks(new BookVO(
+                b.getId(), b.getAuthor(), b.getTitle(), b.getLaunchDate(), b.getPrice())))).getContent();
+
+        String directionName = direction.name().toLowerCase();
+        List<Link> links = new ArrayList<>();
+        links.add(linkTo(methodOn(BookController.class).findAllAfter(after == null ? "" : after, size, directionName)).withSelfRel());
+        if (window.hasNext() && !window.isEmpty()) {
+            var last = window.getContent().get(window.size() - 1);
+            var next = new KeysetCursor(last.getTitle(), last.getId()).encode();
+            links.add(linkTo(methodOn(BookController.class).findAllAfter(next, size, directionName)).withRel(IanaLinkRelations.NEXT));
+        }
+        return CollectionModel.of(bookVos, links);
+    }
+
+    /**
+     * Writes every book to {@code out} as it is read from the database cursor, so memory use does not grow
+     * with the table.
+     */
+    @Transactional(readOnly = true)
+    public void exportAll(OutputStream out, RowFormat format) throws IOException {
+        logger.info("Exporting all books as " + format.value());
+        try (var books = repository.streamAllVOs(); var writer = format.writer(out, EXPORT_COLUMNS)) {
+            for (var iterator = books.iterator(); iterator.hasNext(); ) {
+                var book = iterator.next();
+                writer.write(book.getKey(), book.getAuthor(), book.getTitle(), book.getLaunchDate(), book.getPrice());
+            }
+        }
+    }
+
+    /**
+     * Reads books from {@code in}, with the columns of {@link #EXPORT_COLUMNS} except {@code id}, and saves them
+     * in chunks, see {@link RowImporter}.
+     */
+    public ImportReportVO importAll(InputStream in, RowFormat format) throws IOException {
+        logger.info("Importing books from " + format.value());
+        try (var reader = format.reader(in)) {
+            var report = importer.importRows("books", reader, BookService::fromRow, repository, Book::getId);
+            totalCounts.add(TOTAL_COUNT_KEY, report.getRowsImported());
+            return report;
+        }
+    }
 
-        Link link = linkTo(methodOn(BookController.class).findAll(pageable.getPageNumber(), pageable.getPageSize(), "Asc"
+    private static Book fromRow(Row row) {
+        var entity = new Book();
+        entity.setAuthor(row.required("author", 180));
+        entity.setTitle(row.required("title", 250));
+        entity.setLaunchDate(row.requiredDate("launchDate"));
+        entity.setPrice(row.requiredDouble("price"));
+        return entity;
+    }
 
-        )).withSelfRel();
-        return assembler.toModel(bookVOPage, link);
+    public String etag(Long id, long version, Fieldset fields, String variant) {
+        return ETags.of("book", id, version, fields.value(), variant);
     }
 
-    public BookVO findById(Long id) {
+    /**
+     * Finds a book with its ETag, see {@link PersonService#findById(Long, Fieldset, String, Predicate)}.
+     */
+    public Tagged<BookVO> findById(Long id, Fieldset fields, String variant, Predicate<String> notModified) {
+        fields.requireKnown(BookRepository.VO_PROJECTION.attributes());
+        if (!fields.isAll()) {
+            var loaded = singleFlight.load("book:" + id + ":" + fields.value() + ":" + variant, () -> loadFields(id, fields, variant));
+            if (notModified.test(loaded.etag())) return new Tagged<>(null, loaded.etag());
+            // The loaded book is shared with concurrent callers: each one links its own copy, from its own request.
+            return new Tagged<>(addLinks(copyOf(loaded.body()), fields), loaded.etag());
+        }
+        var entity = singleFlight.load("book:" + id, () -> load(id));
+        String etag = etag(id, entity.getVersion(), fields, variant);
+        if (notModified.test(etag)) return new Tagged<>(null, etag);
+        // The entity is shared with concurrent callers and only read: each one maps and links its own book.
+        return new Tagged<>(addLinks(DozerMapper.parseObject(entity, BookVO.class), fields), etag);
+    }
+
+    private Book load(Long id) {
         logger.info("Find a book (id = " + id + ")");
-        var entity = repository.findById(id).orElseThrow(() -> new ResourceNotFoundException("No records found for this ID!"));
-        var vo = DozerMapper.parseObject(entity, BookVO.class);
-        vo.add(linkTo(methodOn(BookController.class).findById(id)).withSelfRel());
-        // vo.add(linkTo(methodOn(PersonController.class).findById(id)).withSelfRel());
-        return vo;
+        return repository.findById(id).orElseThrow(() -> new ResourceNotFoundException("No records found for this ID!"));
+    }
+
+    private Tagged<BookVO> loadFields(Long id, Fieldset fields, String variant) {
+        logger.info("Find a book (id = " + id + ")");
+        // The version is read before the columns, so the tag is never newer than the body it is sent with.
+        long version = repository.findVersionById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("No records found for this ID!"));
+        var vo = sparseFieldsets.findById(BookRepository.VO_PROJECTION, fields, id)
+                .orElseThrow(() -> new ResourceNotFoundException("No records found for this ID!"));
+        return new Tagged<>(vo, etag(id, version, fields, variant));
+    }
+
+    /**
+     * Finds the books with the given ids, see {@link PersonService#findAllById(List, Fieldset)}.
+     */
+    @Transactional(readOnly = true)
+    public List<MultiGetItemVO<BookVO>> findAllById(List<Long> ids, Fieldset fields) {
+        logger.info("Finding books by id");
+        fields.requireKnown(BookRepository.VO_PROJECTION.attributes());
+        Map<Long, BookVO> found = new HashMap<>();
+        for (var chunk : IdBatches.partition(ids)) {
+            var books = fields.isAll()
+                    ? repository.findAllVOsById(chunk)
+                    : sparseFieldsets.findAllById(BookRepository.VO_PROJECTION, fields, chunk);
+            books.forEach(vo -> found.put(vo.getKey(), addLinks(vo, fields)));
+        }
+        return MultiGetItemVO.inRequestOrder(ids, found);
     }
 
     public BookVO create(BookVO book) {
         logger.info("Creating a new book");
         var entity = DozerMapper.parseObject(book, Book.class);
         var vo = DozerMapper.parseObject(repository.save(entity), BookVO.class);
-        vo.add(linkTo(methodOn(BookController.class).findById(vo.getKey())).withSelfRel());
+        totalCounts.add(TOTAL_COUNT_KEY, 1);
+        vo.add(linkTo(methodOn(BookController.class).findById(vo.getKey(), null, null)).withSelfRel());
         return vo;
     }
 
-    public BookVO update(BookVO book) {
+    /**
+     * Creates every book of the list in chunks, see {@link BatchWriter}. Ids given in the request are ignored.
+     */
+    public List<BatchItemResultVO> createAll(List<BookVO> books) {
+        if (books == null || books.isEmpty()) throw new RequiredObjectIsNullException("At least one book is required.");
+        logger.info("Creating " + books.size() + " books");
+
+        var results = batchWriter.saveAll(books, BookService::toNewEntity, repository, Book::getId);
+        totalCounts.add(TOTAL_COUNT_KEY, results.stream().filter(r -> r.getStatus() == HttpStatus.CREATED.value()).count());
+        results.stream()
+                .filter(r -> r.getKey() != null)
+                .forEach(r -> r.add(linkTo(methodOn(BookController.class).findById(r.getKey(), null, null)).withSelfRel()));
+        return results;
+    }
+
+    /**
+     * Replaces the book through its managed entity, honouring {@code ifMatch}, see
+     * {@link PersonService#update(PersonVO, String, String)}.
+     */
+    @Transactional
+    public Tagged<BookVO> update(BookVO book, String ifMatch, String variant) {
         logger.info("Upgrading a book");
-        var entity = repository.findById(book.getKey()).orElseThrow(() -> new ResourceNotFoundException("No records found for this ID!"));
+        if (book == null || book.getKey() == null) throw new RequiredObjectIsNullException();
+
+        Long id = book.getKey();
+        var entity = repository.findById(id).orElseThrow(() -> new ResourceNotFoundException("No records found for this ID!"));
+        if (ifMatch != null && !ETags.matches(ifMatch, etag(id, entity.getVersion(), Fieldset.ALL, variant))) {
+            throw new PreconditionFailedException("The book was changed since it was read.");
+        }
 
-        entity.setTitle(book.getTitle());
         entity.setAuthor(book.getAuthor());
-        entity.setPrice(book.getPrice());
+        entity.setTitle(book.getTitle());
         entity.setLaunchDate(book.getLaunchDate());
-
-        var vo = DozerMapper.parseObject(repository.save(entity), BookVO.class);
-        vo.add(linkTo(methodOn(BookController.class).findById(vo.getKey())).withSelfRel());
-
-        return vo;
+        entity.setPrice(book.getPrice());
+        try {
+            repository.flush();
+        } catch (OptimisticLockingFailureException e) {
+            if (ifMatch == null) throw e;
+            throw new PreconditionFailedException("The book was changed since it was read.");
+        }
+        return new Tagged<>(addLinks(DozerMapper.parseObject(entity, BookVO.class)),
+                etag(id, entity.getVersion(), Fieldset.ALL, variant));
     }
 
     public void delete(Long id) {
         logger.info("Deleting a book");
         var entity = repository.findById(id).orElseThrow(() -> new ResourceNotFoundException("No records found for this ID to delete"));
         repository.delete(entity);
+        totalCounts.add(TOTAL_COUNT_KEY, -1);
+    }
+
+    private static Book toNewEntity(BookVO book) {
+        var entity = DozerMapper.parseObject(book, Book.class);
+        entity.setId(null);
+        return entity;
+    }
+
+    private BookVO addLinks(BookVO vo) {
+        return vo.add(linkTo(methodOn(BookController.class).findById(vo.getKey(), null, null)).withSelfRel());
+    }
+
+    private BookVO addLinks(BookVO vo, Fieldset fields) {
+        return fields.includes(Fieldset.LINKS) ? addLinks(vo) : vo;
+    }
+
+    private static BookVO copyOf(BookVO vo) {
+        return new BookVO(vo.getKey(), vo.getAuthor(), vo.getTitle(), vo.getLaunchDate(), vo.getPrice());
     }
 }
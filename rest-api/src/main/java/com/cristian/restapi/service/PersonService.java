@@ -1,20 +1,55 @@
 package com.cristian.restapi.service;
 
 import com.cristian.restapi.controller.PersonController;
+import com.cristian.restapi.data.vo.v1.BatchItemResultVO;
+import com.cristian.restapi.data.vo.v1.BulkResultVO;
+import com.cristian.restapi.data.vo.v1.ImportReportVO;
+import com.cristian.restapi.data.vo.v1.MultiGetItemVO;
 import com.cristian.restapi.data.vo.v1.PersonVO;
+import com.cristian.restapi.exception.InvalidRequestParameterException;
+import com.cristian.restapi.exception.PreconditionFailedException;
+import com.cristian.restapi.exception.RequiredObjectIsNullException;
 import com.cristian.restapi.exception.ResourceNotFoundException;
 import com.cristian.restapi.mapper.DozerMapper;
 import com.cristian.restapi.model.Person;
 import com.cristian.restapi.repository.PersonRepository;
-import jakarta.transaction.Transactional;
+import com.cristian.restapi.repository.SparseFieldsetQueries;
+import com.cristian.restapi.serialization.rows.Row;
+import com.cristian.restapi.util.CountMode;
+import com.cristian.restapi.util.ETags;
+import com.cristian.restapi.util.Fieldset;
+import com.cristian.restapi.util.FullTextSearch;
+import com.cristian.restapi.util.IdBatches;
+import com.cristian.restapi.util.KeysetCursor;
+import com.cristian.restapi.util.RowFormat;
+import com.cristian.restapi.util.Tagged;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PagedResourcesAssembler;
+import org.springframework.data.web.SlicedResourcesAssembler;
+import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
 import org.springframework.hateoas.Link;
-import org.springframework.hateoas.PagedModel;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
 import java.util.logging.Logger;
 
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
@@ -30,99 +65,414 @@ public class PersonService {
     @Autowired
     PagedResourcesAssembler<PersonVO> assembler;
 
-    public PagedModel<EntityModel<PersonVO>> findAll(Pageable pageable) {
+    @Autowired
+    SlicedResourcesAssembler<PersonVO> slicedAssembler;
+
+    @Autowired
+    TotalCountCache totalCounts;
+
+    @Autowired
+    BatchWriter batchWriter;
+
+    @Autowired
+    RowImporter importer;
+
+    @Autowired
+    SparseFieldsetQueries sparseFieldsets;
+
+    @Autowired
+    SingleFlight singleFlight;
+
+    static final List<String> EXPORT_COLUMNS = List.of("id", "firstName", "lastName", "address", "gender", "enabled");
+
+    static final String TOTAL_COUNT_KEY = "person";
+
+    /**
+     * Lists a page of people with its ETag. The tag covers the ids and versions of the rows of the page, whether
+     * there is a next one and the total, so it changes whenever a row is added to, changed in or removed from the
+     * page. It is computed first, from those two columns and the count, and handed to {@code notModified}: when
+     * that answers {@code true} the page is not read and the body is {@code null}. Otherwise the page is read in the
+     * same transaction and reuses the count.
+     * <p>
+     * With a {@link Fieldset} other than {@link Fieldset#ALL}, only the columns asked for are selected, see
+     * {@link SparseFieldsetQueries}.
+     */
+    @Transactional(readOnly = true)
+    public Tagged<CollectionModel<EntityModel<PersonVO>>> findAll(Pageable pageable, CountMode countMode, Fieldset fields,
+                                                                  String variant, Predicate<String> notModified) {
         logger.info("Finding all people");
+        fields.requireKnown(PersonRepository.VO_PROJECTION.attributes());
 
-        var personPage = repository.findAll(pageable);
-        var personVosPage = personPage.map(p -> DozerMapper.parseObject(p, PersonVO.class));
-        personVosPage.map(
-                p -> p.add(linkTo(methodOn(PersonController.class)
-                        .findById(p.getKey()))
-                        .withSelfRel()
-                )
-        );
+        var versions = repository.findSliceOfVersions(pageable);
+        Long total = switch (countMode) {
+            case EXACT -> repository.count();
+            case CACHED -> totalCounts.get(TOTAL_COUNT_KEY, repository::count);
+            case NONE -> null;
+        };
+        List<Object> parts = new ArrayList<>(Arrays.asList("person", pageable, countMode, fields.value(), variant,
+                versions.hasNext(), total));
+        versions.forEach(row -> parts.add(row.getId() + ":" + row.getVersion()));
+        String etag = ETags.of(parts.toArray());
+        if (notModified.test(etag)) return new Tagged<>(null, etag);
 
         Link link = linkTo(methodOn(PersonController.class)
                 .findAll(
                         pageable.getPageNumber(),
                         pageable.getPageSize(),
-                        "asc"
+                        "asc",
+                        countMode.value(),
+                        fields.value(),
+                        null
                 )).withSelfRel();
 
+        Slice<PersonVO> personSlice = fields.isAll()
+                ? repository.findSliceOfVOs(pageable).map(this::addLinks)
+                : sparseFieldsets.findSlice(PersonRepository.VO_PROJECTION, fields, pageable).map(vo -> addLinks(vo, fields));
+        CollectionModel<EntityModel<PersonVO>> people = total == null
+                ? slicedAssembler.toModel(personSlice, link)
+                : assembler.toModel(new PageImpl<>(personSlice.getContent(), pageable, total), link);
+        return new Tagged<>(people, etag);
+    }
+
+    /**
+     * Cursor mode of {@link #findAll(Pageable, CountMode, Fieldset, String, Predicate)}: seeks past the row identified by {@code after} instead of
+     * skipping {@code page * size} rows, and does not count. A {@code next} link is added while rows remain.
+     */
+    @Transactional(readOnly = true)
+    public CollectionModel<EntityModel<PersonVO>> findAllAfter(String after, int size, Sort.Direction direction) {
+        logger.info("Finding all people after cursor");
+        KeysetCursor.requirePageSize(size);
+
+        var cursor = KeysetCursor.decode(after);
+        var sort = Sort.by(direction, "firstName", "id");
+        var window = repository.findBy(KeysetCursor.scrollPosition(cursor, "firstName"), sort, Limit.of(size));
+
+        var personVos = window.map(p -> EntityModel.of(addLinks(new PersonVO(
+                p.getId(), p.getFirstName(), p.getLastName(), p.getAddress(), p.getGender(), p.getEnabled())))).getContent();
 
-        return assembler.toModel(personVosPage, link);
+        String directionName = direction.name().toLowerCase();
+        List<Link> links = new ArrayList<>();
+        links.add(linkTo(methodOn(PersonController.class).findAllAfter(after == null ? "" : after, size, directionName)).withSelfRel());
+        if (window.hasNext() && !window.isEmpty()) {
+            var last = window.getContent().get(window.size() - 1);
+            var next = new KeysetCursor(last.getFirstName(), last.getId()).encode();
+            links.add(linkTo(methodOn(PersonController.class).findAllAfter(next, size, directionName)).withRel(IanaLinkRelations.NEXT));
+        }
+        return CollectionModel.of(personVos, links);
     }
 
-    public PagedModel<EntityModel<PersonVO>> findPeopleByName(String firstName, Pageable pageable) {
+    @Transactional(readOnly = true)
+    public CollectionModel<EntityModel<PersonVO>> findPeopleByName(String firstName, Pageable pageable, CountMode countMode) {
         logger.info("Finding a person with first name = " + firstName);
 
-        var personPage = repository.findPeopleByName(firstName, pageable);
-        var personVosPage = personPage.map(p -> DozerMapper.parseObject(p, PersonVO.class));
-        personVosPage.map(
-                p -> p.add(linkTo(methodOn(PersonController.class)
-                        .findById(p.getKey()))
-                        .withSelfRel()
-                )
-        );
-
         Link link = linkTo(methodOn(PersonController.class)
                 .findPeopleByName(
                         firstName,
                         pageable.getPageNumber(),
                         pageable.getPageSize(),
-                        "asc"
+                        "asc",
+                        countMode.value()
                 )).withSelfRel();
 
+        if (countMode == CountMode.CACHED) {
+            throw new InvalidRequestParameterException("A cached count is only available when listing all people.");
+        }
+
+        // Terms shorter than the ngram size cannot use the FULLTEXT index and fall back to a table scan.
+        String phrase = FullTextSearch.substringPhrase(firstName);
+        if (phrase == null) {
+            return countMode == CountMode.NONE
+                    ? slicedAssembler.toModel(repository.findSliceOfPeopleByName(firstName, pageable).map(this::toVO), link)
+                    : assembler.toModel(repository.findPeopleByName(firstName, pageable).map(this::toVO), link);
+        }
+        var nativePageable = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), toColumnSort(pageable.getSort()));
+        return countMode == CountMode.NONE
+                ? slicedAssembler.toModel(repository.searchSliceOfPeopleByName(firstName, phrase, nativePageable).map(this::toVO), link)
+                : assembler.toModel(repository.searchPeopleByName(firstName, phrase, nativePageable).map(this::toVO), link);
+    }
+
+    private static Sort toColumnSort(Sort sort) {
+        return Sort.by(sort.stream()
+                .map(order -> order.withProperty("firstName".equals(order.getProperty()) ? "first_name" : order.getProperty()))
+                .toList());
+    }
+
+    /**
+     * Writes every person to {@code out} as it is read from the database cursor, so memory use does not grow
+     * with the table.
+     */
+    @Transactional(readOnly = true)
+    public void exportAll(OutputStream out, RowFormat format) throws IOException {
+        logger.info("Exporting all people as " + format.value());
+        try (var people = repository.streamAllVOs(); var writer = format.writer(out, EXPORT_COLUMNS)) {
+            for (var iterator = people.iterator(); iterator.hasNext(); ) {
+                var person = iterator.next();
+                writer.write(person.getKey(), person.getFirstName(), person.getLastName(), person.getAddress(),
+                        person.getGender(), person.getEnabled());
+            }
+        }
+    }
+
+    /**
+     * Reads people from {@code in}, with the columns of {@link #EXPORT_COLUMNS} except {@code id}, and saves them
+     * in chunks, see {@link RowImporter}. A missing {@code enabled} means {@code true}.
+     */
+    public ImportReportVO importAll(InputStream in, RowFormat format) throws IOException {
+        logger.info("Importing people from " + format.value());
+        try (var reader = format.reader(in)) {
+            var report = importer.importRows("people", reader, PersonService::fromRow, repository, Person::getId);
+            totalCounts.add(TOTAL_COUNT_KEY, report.getRowsImported());
+            return report;
+        }
+    }
+
+    private static Person fromRow(Row row) {
+        var entity = new Person();
+        entity.setFirstName(row.required("firstName", 80));
+        entity.setLastName(row.required("lastName", 80));
+        entity.setAddress(row.required("address", 100));
+        entity.setGender(row.required("gender", 6));
+        entity.setEnabled(row.booleanValue("enabled", true));
+        return entity;
+    }
 
-        return assembler.toModel(personVosPage, link);
+    /**
+     * The ETag of the person at {@code version}; {@code If-Match} is compared with it by
+     * {@link #update(PersonVO, String, String)}.
+     */
+    public String etag(Long id, long version, Fieldset fields, String variant) {
+        return ETags.of("person", id, version, fields.value(), variant);
     }
 
-    public PersonVO findById(Long id) {
+    /**
+     * Finds a person with its ETag in the representation chosen by {@code variant}, the {@code Accept} header.
+     * The tag is handed to {@code notModified} before the person is mapped and linked: when that answers
+     * {@code true} the body is {@code null}. Concurrent calls for the same person, or the same person, fieldset and
+     * variant with a sparse fieldset, share one load, see {@link SingleFlight}. There is no transaction here so that
+     * the callers waiting on it hold no connection; the load reads in its own.
+     */
+    public Tagged<PersonVO> findById(Long id, Fieldset fields, String variant, Predicate<String> notModified) {
+        fields.requireKnown(PersonRepository.VO_PROJECTION.attributes());
+        if (!fields.isAll()) {
+            var loaded = singleFlight.load("person:" + id + ":" + fields.value() + ":" + variant, () -> loadFields(id, fields, variant));
+            if (notModified.test(loaded.etag())) return new Tagged<>(null, loaded.etag());
+            // The loaded person is shared with concurrent callers: each one links its own copy, from its own request.
+            return new Tagged<>(addLinks(copyOf(loaded.body()), fields), loaded.etag());
+        }
+        var entity = singleFlight.load("person:" + id, () -> load(id));
+        String etag = etag(id, entity.getVersion(), fields, variant);
+        if (notModified.test(etag)) return new Tagged<>(null, etag);
+        // The entity is shared with concurrent callers and only read: each one maps and links its own person.
+        return new Tagged<>(addLinks(DozerMapper.parseObject(entity, PersonVO.class), fields), etag);
+    }
+
+    private Person load(Long id) {
         logger.info("finding a person with id = " + id);
+        return repository.findById(id).orElseThrow(() -> new ResourceNotFoundException("No records found for this ID!"));
+    }
 
-        var entity = repository.findById(id).orElseThrow(() -> new ResourceNotFoundException("No records found for this ID!"));
-        var vo = DozerMapper.parseObject(entity, PersonVO.class);
-        vo.add(linkTo(methodOn(PersonController.class).findById(id)).withSelfRel());
-        return vo;
+    private Tagged<PersonVO> loadFields(Long id, Fieldset fields, String variant) {
+        logger.info("finding a person with id = " + id);
+        // The version is read before the columns, so the tag is never newer than the body it is sent with.
+        long version = repository.findVersionById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("No records found for this ID!"));
+        var vo = sparseFieldsets.findById(PersonRepository.VO_PROJECTION, fields, id)
+                .orElseThrow(() -> new ResourceNotFoundException("No records found for this ID!"));
+        return new Tagged<>(vo, etag(id, version, fields, variant));
+    }
+
+    /**
+     * Finds the people with the given ids with one {@code SELECT} per {@link IdBatches#MAX_IDS_PER_STATEMENT} ids
+     * and returns one result per id, in request order.
+     */
+    @Transactional(readOnly = true)
+    public List<MultiGetItemVO<PersonVO>> findAllById(List<Long> ids, Fieldset fields) {
+        logger.info("Finding people by id");
+        fields.requireKnown(PersonRepository.VO_PROJECTION.attributes());
+        Map<Long, PersonVO> found = new HashMap<>();
+        for (var chunk : IdBatches.partition(ids)) {
+            var people = fields.isAll()
+                    ? repository.findAllVOsById(chunk)
+                    : sparseFieldsets.findAllById(PersonRepository.VO_PROJECTION, fields, chunk);
+            people.forEach(vo -> found.put(vo.getKey(), addLinks(vo, fields)));
+        }
+        return MultiGetItemVO.inRequestOrder(ids, found);
     }
 
     public PersonVO create(PersonVO person) {
         logger.info("Creating a new  person");
         var entity = DozerMapper.parseObject(person, Person.class);
         var vo = DozerMapper.parseObject(repository.save(entity), PersonVO.class);
-        vo.add(linkTo(methodOn(PersonController.class).findById(vo.getKey())).withSelfRel());
+        totalCounts.add(TOTAL_COUNT_KEY, 1);
+        vo.add(linkTo(methodOn(PersonController.class).findById(vo.getKey(), null, null)).withSelfRel());
         return vo;
     }
 
-    public PersonVO update(PersonVO person) {
+    /**
+     * Creates every person of the list in chunks, see {@link BatchWriter}. Ids given in the request are ignored.
+     */
+    public List<BatchItemResultVO> createAll(List<PersonVO> people) {
+        if (people == null || people.isEmpty()) throw new RequiredObjectIsNullException("At least one person is required.");
+        logger.info("Creating " + people.size() + " people");
+
+        var results = batchWriter.saveAll(people, PersonService::toNewEntity, repository, Person::getId);
+        totalCounts.add(TOTAL_COUNT_KEY, results.stream().filter(r -> r.getStatus() == HttpStatus.CREATED.value()).count());
+        results.stream()
+                .filter(r -> r.getKey() != null)
+                .forEach(r -> r.add(linkTo(methodOn(PersonController.class).findById(r.getKey(), null, null)).withSelfRel()));
+        return results;
+    }
+
+    /**
+     * Replaces the person through its managed entity, usually found in the second-level cache, so the flush is a
+     * single {@code UPDATE ... WHERE id = ? AND version = ?} and only this person's cache entry is replaced; a JPQL
+     * {@code UPDATE} would evict the whole region.
+     * <p>
+     * With {@code ifMatch}, the person is only updated while one of its tags is the current ETag of the person in
+     * the {@code variant} representation, the one a {@code GET} with the same {@code Accept} returns, so a writer
+     * cannot overwrite changes it has not seen. A change committed between that check and the flush fails the
+     * version check of the {@code UPDATE} and is reported the same way.
+     *
+     * @return the updated person and its new ETag in the {@code variant} representation
+     */
+    @Transactional
+    public Tagged<PersonVO> update(PersonVO person, String ifMatch, String variant) {
         logger.info("Upgrading a person");
+        if (person == null || person.getKey() == null) throw new RequiredObjectIsNullException();
 
-        var entity = repository.findById(person.getKey()).orElseThrow(() -> new ResourceNotFoundException("No records found for this ID!"));
+        Long id = person.getKey();
+        var entity = repository.findById(id).orElseThrow(() -> new ResourceNotFoundException("No records found for this ID!"));
+        if (ifMatch != null && !ETags.matches(ifMatch, etag(id, entity.getVersion(), Fieldset.ALL, variant))) {
+            throw new PreconditionFailedException("The person was changed since it was read.");
+        }
 
         entity.setFirstName(person.getFirstName());
         entity.setLastName(person.getLastName());
         entity.setAddress(person.getAddress());
         entity.setGender(person.getGender());
+        try {
+            repository.flush();
+        } catch (OptimisticLockingFailureException e) {
+            if (ifMatch == null) throw e;
+            throw new PreconditionFailedException("The person was changed since it was read.");
+        }
+        return new Tagged<>(toVO(entity), etag(id, entity.getVersion(), Fieldset.ALL, variant));
+    }
 
-        var vo = DozerMapper.parseObject(repository.save(entity), PersonVO.class);
-        vo.add(linkTo(methodOn(PersonController.class).findById(vo.getKey())).withSelfRel());
-        return vo;
+    /**
+     * {@link #disablePerson(Long)} without mapping the person to a response.
+     */
+    @Transactional
+    public void disablePersonWithoutReadback(Long id) {
+        logger.info("Disabling a person without readback");
+        disable(id);
     }
 
+    /**
+     * Disables the given people with one {@code UPDATE} per {@link IdBatches#MAX_IDS_PER_STATEMENT} ids, in one transaction.
+     * Hibernate empties the person cache region after such a statement, so a single id is disabled through its
+     * entity instead, which only replaces its own cache entry.
+     */
+    @Transactional
+    public BulkResultVO disableAll(List<Long> ids) {
+        logger.info("Disabling people by id");
+        var chunks = IdBatches.partition(ids);
+        if (isSingleId(chunks)) {
+            var entity = repository.findById(chunks.get(0).get(0)).filter(Person::getEnabled);
+            entity.ifPresent(person -> person.setEnabled(false));
+            return new BulkResultVO(ids.size(), entity.isPresent() ? 1 : 0);
+        }
+        long affected = 0;
+        for (var chunk : chunks) {
+            affected += repository.disableAllById(chunk);
+        }
+        return new BulkResultVO(ids.size(), affected);
+    }
+
+    /**
+     * Disables every person whose first name contains {@code firstName}, with a single {@code UPDATE}.
+     */
+    @Transactional
+    public BulkResultVO disableAllByName(String firstName) {
+        logger.info("Disabling people with first name = " + firstName);
+        if (firstName == null || firstName.isBlank()) throw new InvalidRequestParameterException("A first name is required.");
+        return new BulkResultVO(null, repository.disableAllByName(firstName));
+    }
+
+    /**
+     * Disables the person through its entity, usually found in the second-level cache: the flush is one
+     * versioned {@code UPDATE} and only this person's cache entry is replaced.
+     */
     @Transactional
     public PersonVO disablePerson(Long id) {
         logger.info("Disabling a person");
-        repository.disablePerson(id);
+        return toVO(disable(id));
+    }
+
+    private Person disable(Long id) {
         var entity = repository.findById(id).orElseThrow(() -> new ResourceNotFoundException("No records found for this ID!"));
-        var vo = DozerMapper.parseObject(entity, PersonVO.class);
-        vo.add(linkTo(methodOn(PersonController.class).findById(id)).withSelfRel());
-        return vo;
+        entity.setEnabled(false);
+        return entity;
     }
 
+    /**
+     * Removes the person through its entity, which only evicts its own cache entry, see {@link #disablePerson(Long)}.
+     */
+    @Transactional
     public void delete(Long id) {
         logger.info("Deleting a person");
 
         var entity = repository.findById(id).orElseThrow(() -> new ResourceNotFoundException("No records found for this ID!"));
         repository.delete(entity);
+        totalCounts.add(TOTAL_COUNT_KEY, -1);
+    }
+
+    /**
+     * Deletes the given people with one {@code DELETE} per {@link IdBatches#MAX_IDS_PER_STATEMENT} ids, in one transaction.
+     * Ids that do not exist are ignored. A single id is deleted through its entity, see {@link #disableAll(List)}.
+     */
+    @Transactional
+    public BulkResultVO deleteAll(List<Long> ids) {
+        logger.info("Deleting people by id");
+        var chunks = IdBatches.partition(ids);
+        long affected = 0;
+        if (isSingleId(chunks)) {
+            var entity = repository.findById(chunks.get(0).get(0));
+            entity.ifPresent(repository::delete);
+            affected = entity.isPresent() ? 1 : 0;
+        } else {
+            for (var chunk : chunks) {
+                affected += repository.deleteAllById(chunk);
+            }
+        }
+        totalCounts.add(TOTAL_COUNT_KEY, -affected);
+        return new BulkResultVO(ids.size(), affected);
+    }
+
+    private static boolean isSingleId(List<List<Long>> chunks) {
+        return chunks.size() == 1 && chunks.get(0).size() == 1;
+    }
+
+    private static Person toNewEntity(PersonVO person) {
+        var entity = DozerMapper.parseObject(person, Person.class);
+        entity.setId(null);
+        if (entity.getEnabled() == null) entity.setEnabled(true);
+        return entity;
+    }
+
+    private PersonVO toVO(Person person) {
+        return addLinks(DozerMapper.parseObject(person, PersonVO.class));
+    }
+
+    private PersonVO addLinks(PersonVO vo) {
+        return vo.add(linkTo(methodOn(PersonController.class).findById(vo.getKey(), null, null)).withSelfRel());
+    }
+
+    private PersonVO addLinks(PersonVO vo, Fieldset fields) {
+        return fields.includes(Fieldset.LINKS) ? addLinks(vo) : vo;
+    }
+
+    private static PersonVO copyOf(PersonVO vo) {
+        return new PersonVO(vo.getKey(), vo.getFirstName(), vo.getLastName(), vo.getAddress(), vo.getGender(), vo.getEnabled());
     }
 }
@@ -0,0 +1,82 @@
+package com.cristian.restapi.service;
+
+import com.cristian.restapi.data.vo.v1.BatchItemResultVO;
+import com.cristian.restapi.data.vo.v1.ImportReportVO;
+import com.cristian.restapi.serialization.rows.MalformedRowException;
+import com.cristian.restapi.serialization.rows.Row;
+import com.cristian.restapi.serialization.rows.RowReader;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+/**
+ * Imports the rows of a {@link RowReader} through {@link BatchWriter}, one chunk at a time: only the rows of the
+ * current chunk are in memory, and every chunk is committed before the next one is read. A row that cannot be
+ * parsed, fails validation or cannot be saved is skipped and reported by its line.
+ */
+@Component
+public class RowImporter {
+
+    public static final int MAX_REPORTED_FAILURES = 1000;
+
+    private final Logger logger = Logger.getLogger(RowImporter.class.getName());
+
+    @Autowired
+    BatchWriter batchWriter;
+
+    /**
+     * @param toEntity builds an entity without id from a row, throwing
+     *                 {@link com.cristian.restapi.exception.InvalidRequestParameterException} for an invalid one
+     */
+    public <E> ImportReportVO importRows(String name, RowReader reader, Function<Row, E> toEntity,
+                                         JpaRepository<E, Long> repository, Function<E, Long> idOf) throws IOException {
+        var report = new ImportReportVO();
+        List<Row> chunk = new ArrayList<>(batchWriter.getChunkSize());
+        while (true) {
+            Row row;
+            try {
+                row = reader.next();
+            } catch (MalformedRowException e) {
+                report.setRowsRead(report.getRowsRead() + 1);
+                fail(report, e.getLine(), e.getMessage());
+                continue;
+            }
+            if (row == null) break;
+            report.setRowsRead(report.getRowsRead() + 1);
+            chunk.add(row);
+            if (chunk.size() == batchWriter.getChunkSize()) {
+                save(name, chunk, toEntity, repository, idOf, report);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) save(name, chunk, toEntity, repository, idOf, report);
+        return report;
+    }
+
+    private <E> void save(String name, List<Row> chunk, Function<Row, E> toEntity, JpaRepository<E, Long> repository,
+                          Function<E, Long> idOf, ImportReportVO report) {
+        for (BatchItemResultVO result : batchWriter.saveAll(chunk, toEntity, repository, idOf)) {
+            if (result.getStatus() == HttpStatus.CREATED.value()) {
+                report.setRowsImported(report.getRowsImported() + 1);
+            } else {
+                fail(report, chunk.get(result.getIndex()).line(), result.getMessage());
+            }
+        }
+        logger.info("Importing " + name + ": " + report.getRowsRead() + " rows read, " + report.getRowsImported()
+                + " imported, " + report.getRowsFailed() + " failed");
+    }
+
+    private static void fail(ImportReportVO report, long line, String message) {
+        report.setRowsFailed(report.getRowsFailed() + 1);
+        if (report.getFailures().size() < MAX_REPORTED_FAILURES) {
+            report.getFailures().add(new ImportReportVO.Failure(line, message));
+        }
+    }
+}
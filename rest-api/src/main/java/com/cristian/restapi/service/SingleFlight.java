@@ -0,0 +1,79 @@
+package com.cristian.restapi.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * Coalesces concurrent loads of the same key: the first caller runs the load, and callers asking for the key
+ * while it runs wait for it and get its result, or its exception, instead of running their own. Nothing is kept
+ * once the load completes, so the next caller loads again.
+ * <p>
+ * Every caller gets the same instance, so results must not be modified: callers that add to them, links for
+ * instance, copy them first. A caller that waits longer than {@code single-flight.max-wait} stops waiting and
+ * runs the load itself.
+ * <p>
+ * Callers must not hold a database connection while they wait, so loads should run outside a transaction and
+ * open their own.
+ */
+@Component
+public class SingleFlight {
+
+    private final Logger logger = Logger.getLogger(SingleFlight.class.getName());
+
+    private final ConcurrentMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final long maxWaitNanos;
+
+    @Autowired
+    public SingleFlight(@Value("${single-flight.max-wait:2s}") Duration maxWait) {
+        this.maxWaitNanos = maxWait.toNanos();
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T load(String key, Supplier<T> loader) {
+        var load = new CompletableFuture<Object>();
+        var running = inFlight.putIfAbsent(key, load);
+        if (running != null) return (T) await(key, running, loader);
+
+        try {
+            T value = loader.get();
+            load.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, load);
+        }
+    }
+
+    public int inFlight() {
+        return inFlight.size();
+    }
+
+    private Object await(String key, CompletableFuture<Object> load, Supplier<?> loader) {
+        try {
+            return load.get(maxWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            if (e.getCause() instanceof Error cause) throw cause;
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            logger.fine("Load of " + key + " still running, loading it again");
+            return loader.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the load of " + key, e);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.cristian.restapi.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.LongSupplier;
+import java.util.logging.Logger;
+
+/**
+ * Row counts served without a {@code COUNT} query. A count is loaded on first use, adjusted by the services
+ * on every create and delete, and loaded again once it is older than {@code max-age}, which bounds the drift
+ * caused by writes from other instances or outside the application.
+ */
+@Component
+public class TotalCountCache {
+
+    private final Logger logger = Logger.getLogger(TotalCountCache.class.getName());
+
+    private final long maxAgeNanos;
+    private final LongSupplier clock;
+    private final ConcurrentMap<String, Count> counts = new ConcurrentHashMap<>();
+
+    @Autowired
+    public TotalCountCache(@Value("${pagination.cached-count.max-age:5m}") Duration maxAge) {
+        this(maxAge, System::nanoTime);
+    }
+
+    public TotalCountCache(Duration maxAge, LongSupplier clock) {
+        this.maxAgeNanos = maxAge.toNanos();
+        this.clock = clock;
+    }
+
+    public long get(String key, LongSupplier countQuery) {
+        Count count = counts.get(key);
+        if (count != null && !isStale(count)) return count.value();
+        return counts.compute(key, (k, current) -> {
+            if (current != null && !isStale(current)) return current;
+            logger.info("Counting " + key);
+            return new Count(countQuery.getAsLong(), clock.getAsLong());
+        }).value();
+    }
+
+    /**
+     * Adjusts a loaded count; does nothing if the count has not been loaded yet.
+     */
+    public void add(String key, long delta) {
+        counts.computeIfPresent(key, (k, count) -> new Count(Math.max(0, count.value() + delta), count.loadedAt()));
+    }
+
+    public void invalidate(String key) {
+        counts.remove(key);
+    }
+
+    private boolean isStale(Count count) {
+        return clock.getAsLong() - count.loadedAt() >= maxAgeNanos;
+    }
+
+    private record Count(long value, long loadedAt) {
+    }
+}
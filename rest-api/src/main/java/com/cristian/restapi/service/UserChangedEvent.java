@@ -0,0 +1,7 @@
+package com.cristian.restapi.service;
+
+/**
+ * Published by {@link UserService} when a user, or with a {@code null} username every user, may have changed.
+ */
+public record UserChangedEvent(String username) {
+}
@@ -1,29 +1,58 @@
 package com.cristian.restapi.service;
 
+import com.cristian.restapi.model.User;
 import com.cristian.restapi.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.util.logging.Logger;
 
+/**
+ * Caches users by username for authentication. The entity is kept out of the second-level cache, but the
+ * authentications built from a user are cached per token by {@code JwtAuthenticationCache}: {@link #evict(String)}
+ * and {@link #evictAll()} publish a {@link UserChangedEvent} so that those are dropped too.
+ */
 @Service
-public class UserService implements UserDetailsService {
+public class UserService implements UserDetailsService, UserDetailsPasswordService {
 
     private final Logger logger = Logger.getLogger(UserService.class.getName());
     @Autowired
     UserRepository repository;
 
-    public UserService(UserRepository repository) {
+    private final ApplicationEventPublisher events;
+    private final Cache<String, User> cache;
+
+    @Autowired
+    public UserService(UserRepository repository,
+                       ApplicationEventPublisher events,
+                       MeterRegistry meterRegistry,
+                       @Value("${security.user-cache.maximum-size:1000}") long maximumSize,
+                       @Value("${security.user-cache.ttl:10m}") Duration ttl) {
         this.repository = repository;
+        this.events = events;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "users");
     }
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        logger.info("Finding one user by name: " + username);
-        var user = repository.findByUsername(username);
+        var user = cache.get(username, this::findByUsername);
 
         if (user != null) {
             return user;
@@ -31,4 +60,43 @@ public class UserService implements UserDetailsService {
             throw new UsernameNotFoundException("Username " + username + " not found");
         }
     }
+
+    /**
+     * Called by the authentication provider after a successful login whose stored hash no longer matches the
+     * current encoder settings, with the password re-encoded by the current encoder.
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        logger.info("Upgrading password hash for user: " + user.getUsername());
+        repository.updatePassword(user.getUsername(), newPassword);
+        evict(user.getUsername());
+        if (user instanceof User entity) {
+            entity.setPassword(newPassword);
+        }
+        return user;
+    }
+
+    /**
+     * Must be called whenever a user or the permissions granted to it change.
+     */
+    public void evict(String username) {
+        logger.info("Evicting cached user: " + username);
+        cache.invalidate(username);
+        events.publishEvent(new UserChangedEvent(username));
+    }
+
+    /**
+     * Must be called whenever a permission itself changes, as it may be granted to any user.
+     */
+    public void evictAll() {
+        logger.info("Evicting all cached users");
+        cache.invalidateAll();
+        events.publishEvent(new UserChangedEvent(null));
+    }
+
+    private User findByUsername(String username) {
+        logger.info("Finding one user by name: " + username);
+        return repository.findByUsername(username);
+    }
 }
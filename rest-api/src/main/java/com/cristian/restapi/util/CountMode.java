@@ -0,0 +1,35 @@
+package com.cristian.restapi.util;
+
+import com.cristian.restapi.exception.InvalidRequestParameterException;
+
+import java.util.Locale;
+
+/**
+ * How the total number of elements of a paged list is obtained.
+ */
+public enum CountMode {
+    /**
+     * A {@code COUNT} query per request.
+     */
+    EXACT,
+    /**
+     * No total: one extra row is fetched to know whether there is a next page.
+     */
+    NONE,
+    /**
+     * A total kept in memory, updated by the writes of this instance and recounted periodically.
+     */
+    CACHED;
+
+    public static CountMode of(String value) {
+        try {
+            return valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestParameterException("Invalid count mode: " + value + ", expected exact, none or cached.");
+        }
+    }
+
+    public String value() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
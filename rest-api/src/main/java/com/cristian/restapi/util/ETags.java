@@ -0,0 +1,56 @@
+package com.cristian.restapi.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * Strong entity tags built from row versions and from everything else that shapes a representation, such as the
+ * query parameters and the {@code Accept} header, so that two different representations never share a tag.
+ */
+public final class ETags {
+
+    private ETags() {
+    }
+
+    public static String of(Object... parts) {
+        try {
+            var digest = MessageDigest.getInstance("SHA-256");
+            for (Object part : parts) {
+                digest.update(String.valueOf(part).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(digest.digest()).substring(0, 22) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Whether an {@code If-Match} header, a comma-separated list of tags or {@code *}, matches {@code current} by
+     * strong comparison: weak tags never match, and a malformed header matches nothing.
+     */
+    public static boolean matches(String ifMatch, String current) {
+        if (ifMatch == null || current == null) return false;
+        int i = 0;
+        while (i < ifMatch.length()) {
+            char c = ifMatch.charAt(i);
+            if (c == ',' || Character.isWhitespace(c)) {
+                i++;
+                continue;
+            }
+            if (c == '*') return true;
+            boolean weak = ifMatch.startsWith("W/", i);
+            if (weak) i += 2;
+            if (i >= ifMatch.length() || ifMatch.charAt(i) != '"') return false;
+            int end = ifMatch.indexOf('"', i + 1);
+            if (end < 0) return false;
+            if (!weak && ifMatch.regionMatches(i, current, 0, current.length()) && end + 1 - i == current.length()) {
+                return true;
+            }
+            i = end + 1;
+        }
+        return false;
+    }
+}
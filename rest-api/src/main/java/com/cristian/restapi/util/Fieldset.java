@@ -0,0 +1,86 @@
+package com.cristian.restapi.util;
+
+import com.cristian.restapi.exception.InvalidRequestParameterException;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The properties asked for in the {@code fields} parameter of a request, e.g. {@code fields=firstName,lastName}.
+ * The id is always included; the HATEOAS links only when {@code links} is listed.
+ */
+public final class Fieldset {
+
+    public static final String PARAMETER = "fields";
+
+    /**
+     * Id of the Jackson filter that drops the properties of VOs that were not asked for.
+     */
+    public static final String FILTER_ID = "fieldset";
+
+    public static final String LINKS = "links";
+
+    public static final Fieldset ALL = new Fieldset(null);
+
+    private static final String ID = "id";
+
+    private final Set<String> names;
+
+    private Fieldset(Set<String> names) {
+        this.names = names;
+    }
+
+    /**
+     * Every property for a missing or blank value, otherwise the listed ones, without checking that they exist.
+     */
+    public static Fieldset parse(String value) {
+        if (value == null || value.isBlank()) return ALL;
+        Set<String> names = new LinkedHashSet<>();
+        Arrays.stream(value.split(",")).map(String::trim).filter(name -> !name.isEmpty()).forEach(names::add);
+        return new Fieldset(Collections.unmodifiableSet(names));
+    }
+
+    /**
+     * Returns this fieldset, after checking that every name is one of {@code properties} or {@code links}.
+     */
+    public Fieldset requireKnown(List<String> properties) {
+        if (isAll()) return this;
+        for (String name : names) {
+            if (!name.equals(LINKS) && !properties.contains(name)) {
+                throw new InvalidRequestParameterException("Unknown field: " + name + ", expected any of "
+                        + String.join(", ", properties) + " or " + LINKS + ".");
+            }
+        }
+        return this;
+    }
+
+    public boolean isAll() {
+        return names == null;
+    }
+
+    public boolean includes(String name) {
+        return isAll() || ID.equals(name) || names.contains(name);
+    }
+
+    /**
+     * The names of the serialized properties to keep; the links are {@code _links} in HAL and {@code links}
+     * elsewhere.
+     */
+    public Set<String> serializedNames() {
+        if (isAll()) throw new IllegalStateException("Every property is serialized");
+        Set<String> serialized = new LinkedHashSet<>(names);
+        serialized.add(ID);
+        if (names.contains(LINKS)) serialized.add("_" + LINKS);
+        return serialized;
+    }
+
+    /**
+     * The value of the {@code fields} parameter that asks for this fieldset, {@code null} for every property.
+     */
+    public String value() {
+        return isAll() ? null : String.join(",", names);
+    }
+}
@@ -0,0 +1,25 @@
+package com.cristian.restapi.util;
+
+import java.util.Locale;
+
+/**
+ * Builds search terms for MySQL FULLTEXT indexes created {@code WITH PARSER ngram}.
+ */
+public class FullTextSearch {
+
+    /**
+     * MySQL's default {@code ngram_token_size}: shorter terms produce no token and cannot use the index.
+     */
+    public static final int NGRAM_TOKEN_SIZE = 2;
+
+    /**
+     * Returns a boolean-mode phrase matching {@code term} as a substring, or {@code null} if the term is too
+     * short for the ngram index. Quotes are the only characters with a meaning inside a phrase, so they are dropped.
+     */
+    public static String substringPhrase(String term) {
+        if (term == null) return null;
+        String normalized = term.replace('"', ' ').strip().toLowerCase(Locale.ROOT);
+        if (normalized.length() < NGRAM_TOKEN_SIZE) return null;
+        return '"' + normalized + '"';
+    }
+}
@@ -0,0 +1,34 @@
+package com.cristian.restapi.util;
+
+import com.cristian.restapi.exception.RequiredObjectIsNullException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Splits lists of ids given in a request into the {@code IN} lists of bulk statements.
+ */
+public final class IdBatches {
+
+    /**
+     * Bounds the {@code IN} lists of bulk statements, well below the placeholder limit of MySQL.
+     */
+    public static final int MAX_IDS_PER_STATEMENT = 1000;
+
+    private IdBatches() {
+    }
+
+    /**
+     * Returns the distinct non-null ids in chunks of at most {@link #MAX_IDS_PER_STATEMENT}.
+     */
+    public static List<List<Long>> partition(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) throw new RequiredObjectIsNullException("At least one id is required.");
+        var distinct = ids.stream().filter(Objects::nonNull).distinct().toList();
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int i = 0; i < distinct.size(); i += MAX_IDS_PER_STATEMENT) {
+            chunks.add(distinct.subList(i, Math.min(i + MAX_IDS_PER_STATEMENT, distinct.size())));
+        }
+        return chunks;
+    }
+}
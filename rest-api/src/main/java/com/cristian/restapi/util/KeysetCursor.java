@@ -0,0 +1,61 @@
+package com.cristian.restapi.util;
+
+import com.cristian.restapi.exception.InvalidRequestParameterException;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Position after the last row of a page sorted by a string column and then by id. Clients receive it as an
+ * opaque URL-safe token and send it back in the {@code after} parameter to get the following page.
+ */
+public record KeysetCursor(String sortKey, Long id) {
+
+    /**
+     * Largest page a cursor request may ask for: a seek reads {@code size + 1} rows however deep the page is.
+     */
+    public static final int MAX_PAGE_SIZE = 100;
+
+    /**
+     * @throws InvalidRequestParameterException unless {@code size} is between 1 and {@link #MAX_PAGE_SIZE}
+     */
+    public static void requirePageSize(int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new InvalidRequestParameterException("The page size must be between 1 and " + MAX_PAGE_SIZE + ".");
+        }
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((id + ":" + sortKey).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns the cursor encoded in {@code token}, or {@code null} for an empty token, which asks for the first page.
+     */
+    public static KeysetCursor decode(String token) {
+        if (token == null || token.isBlank()) return null;
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = value.indexOf(':');
+            return new KeysetCursor(value.substring(separator + 1), Long.valueOf(value.substring(0, separator)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new InvalidRequestParameterException("Invalid cursor: " + token);
+        }
+    }
+
+    /**
+     * The scroll position to resume from when sorting by {@code sortProperty} and then by {@code id}.
+     */
+    public static KeysetScrollPosition scrollPosition(KeysetCursor cursor, String sortProperty) {
+        if (cursor == null) return ScrollPosition.keyset();
+        Map<String, Object> keys = new LinkedHashMap<>();
+        keys.put(sortProperty, cursor.sortKey());
+        keys.put("id", cursor.id());
+        return ScrollPosition.forward(keys);
+    }
+}
@@ -0,0 +1,71 @@
+package com.cristian.restapi.util;
+
+import com.cristian.restapi.exception.InvalidRequestParameterException;
+import com.cristian.restapi.serialization.rows.CsvRowReader;
+import com.cristian.restapi.serialization.rows.CsvRowWriter;
+import com.cristian.restapi.serialization.rows.NdjsonRowReader;
+import com.cristian.restapi.serialization.rows.NdjsonRowWriter;
+import com.cristian.restapi.serialization.rows.RowReader;
+import com.cristian.restapi.serialization.rows.RowWriter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Row formats of the {@code /export} and {@code /import} endpoints.
+ */
+public enum RowFormat {
+
+    NDJSON(MediaType.APPLICATION_NDJSON),
+    CSV(MediaType.TEXT_CSV);
+
+    private final String mediaType;
+
+    RowFormat(String mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public static RowFormat of(String value) {
+        try {
+            return valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestParameterException("Invalid format: " + value + ", expected ndjson or csv.");
+        }
+    }
+
+    /**
+     * The format of a request body, from its {@code Content-Type}.
+     */
+    public static RowFormat ofMediaType(String contentType) {
+        for (RowFormat format : values()) {
+            if (contentType != null && contentType.toLowerCase(Locale.ROOT).startsWith(format.mediaType)) return format;
+        }
+        throw new InvalidRequestParameterException("Unsupported content type: " + contentType + ", expected "
+                + MediaType.APPLICATION_NDJSON + " or " + MediaType.TEXT_CSV + ".");
+    }
+
+    public String value() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    public RowReader reader(InputStream in) throws IOException {
+        return switch (this) {
+            case NDJSON -> new NdjsonRowReader(in);
+            case CSV -> new CsvRowReader(in);
+        };
+    }
+
+    public RowWriter writer(OutputStream out, List<String> columns) throws IOException {
+        return switch (this) {
+            case NDJSON -> new NdjsonRowWriter(out, columns);
+            case CSV -> new CsvRowWriter(out, columns);
+        };
+    }
+}
@@ -0,0 +1,7 @@
+package com.cristian.restapi.util;
+
+/**
+ * A representation with the ETag it has once written, for responses to writes that change it.
+ */
+public record Tagged<T>(T body, String etag) {
+}
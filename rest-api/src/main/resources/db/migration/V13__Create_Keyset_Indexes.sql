@@ -0,0 +1,2 @@
+CREATE INDEX `idx_person_first_name_id` ON `person` (`first_name`, `id`);
+CREATE INDEX `idx_books_title_id` ON `books` (`title`(250), `id`);
@@ -0,0 +1,8 @@
+-- The stopword list is bound to a FULLTEXT index when it is created. With the ngram parser any token that
+-- contains a stopword is dropped, and single letters such as 'a' and 'i' are stopwords, so build the index
+-- without them or most names could never be matched.
+SET SESSION innodb_ft_enable_stopword = OFF;
+
+CREATE FULLTEXT INDEX `ft_person_first_name` ON `person` (`first_name`) WITH PARSER ngram;
+
+SET SESSION innodb_ft_enable_stopword = ON;
@@ -0,0 +1,14 @@
+-- Pooled id allocation for person and books: each instance reserves blocks of 50 ids (the allocationSize of
+-- their @TableGenerator) with one update of this table, so inserts no longer depend on AUTO_INCREMENT and
+-- Hibernate can send them in JDBC batches. next_val is the last id of the next block to hand out.
+CREATE TABLE `id_generator` (
+  `sequence_name` varchar(64) NOT NULL,
+  `next_val` bigint(20) NOT NULL,
+  PRIMARY KEY (`sequence_name`)
+) ENGINE=InnoDB;
+
+INSERT INTO `id_generator` (`sequence_name`, `next_val`)
+SELECT 'person', COALESCE(MAX(`id`), 0) + 50 FROM `person`;
+
+INSERT INTO `id_generator` (`sequence_name`, `next_val`)
+SELECT 'books', COALESCE(MAX(`id`), 0) + 50 FROM `books`;
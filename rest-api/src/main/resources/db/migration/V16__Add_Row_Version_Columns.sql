@@ -0,0 +1,7 @@
+-- Row versions for optimistic locking and ETags: bumped by Hibernate on every entity update through @Version,
+-- and explicitly by the JPQL bulk updates. Reads compare it without loading the row.
+ALTER TABLE `person`
+	ADD COLUMN `version` BIGINT(20) NOT NULL DEFAULT 0;
+
+ALTER TABLE `books`
+	ADD COLUMN `version` BIGINT(20) NOT NULL DEFAULT 0;
@@ -0,0 +1,7 @@
+-- books.title was LONGTEXT, which MySQL can only index by prefix, and a prefix index cannot serve the
+-- ORDER BY title, id of the books cursor pages: every page sorted the whole table. Titles are already capped
+-- at 250 characters by the entity and the importer, so a VARCHAR(250) takes them all and can be indexed in full.
+-- A longer title left over from before fails this migration rather than being truncated.
+ALTER TABLE `books` MODIFY `title` VARCHAR(250);
+DROP INDEX `idx_books_title_id` ON `books`;
+CREATE INDEX `idx_books_title_id` ON `books` (`title`, `id`);
@@ -0,0 +1,10 @@
+-- Flyway runs this after every migrate. Inserts with the default IDENTITY allocation take ids from
+-- AUTO_INCREMENT without touching id_generator, so before id-allocation.mode: pooled hands out a block it is
+-- moved above every id issued so far. It only ever grows, so blocks reserved by running instances stay valid.
+UPDATE `id_generator`
+SET `next_val` = GREATEST(`next_val`, (SELECT COALESCE(MAX(`id`), 0) + 50 FROM `person`))
+WHERE `sequence_name` = 'person';
+
+UPDATE `id_generator`
+SET `next_val` = GREATEST(`next_val`, (SELECT COALESCE(MAX(`id`), 0) + 50 FROM `books`))
+WHERE `sequence_name` = 'books';
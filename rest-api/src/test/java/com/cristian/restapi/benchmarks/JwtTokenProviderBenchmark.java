@@ -0,0 +1,166 @@
+package com.cristian.restapi.benchmarks;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.cristian.restapi.security.jwt.JwtAuthenticationCache;
+import com.cristian.restapi.security.jwt.JwtTokenProvider;
+import com.cristian.restapi.security.jwt.RefreshTokenStore;
+import com.cristian.restapi.security.jwt.TokenVersionRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of issuing and verifying tokens. Run with {@code mvn -Pbenchmark test}; the profile adds
+ * {@code -prof gc}, so {@code gc.alloc.rate.norm} is reported next to the throughput of each method.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtTokenProviderBenchmark {
+
+    private static final String SECRET = "53cr37";
+    private static final List<String> ALL_ROLES = List.of(
+            "ADMIN", "MANAGER", "COMMON_USER", "BOOKS_READ", "BOOKS_WRITE",
+            "PEOPLE_READ", "PEOPLE_WRITE", "FILES_UPLOAD", "FILES_DOWNLOAD", "AUDITOR");
+
+    @Param({"1", "3", "10"})
+    public int roleCount;
+
+    @Param({"database", "claims"})
+    public String authenticationMode;
+
+    private JwtTokenProvider tokenProvider;
+    private JwtAuthenticationCache authenticationCache;
+    private List<String> roles;
+    private String accessToken;
+    private String bearerRefreshToken;
+    private MockHttpServletRequest request;
+
+    @Setup
+    public void setUp() {
+        roles = ALL_ROLES.subList(0, roleCount);
+        UserDetails user = User.withUsername("leandro")
+                .password("")
+                .authorities(roles.toArray(new String[0]))
+                .build();
+
+        tokenProvider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(tokenProvider, "secretKey", SECRET);
+        ReflectionTestUtils.setField(tokenProvider, "authenticationMode", authenticationMode);
+        ReflectionTestUtils.setField(tokenProvider, "userDetailsService", (UserDetailsService) username -> user);
+        var tokenVersions = new TokenVersionRegistry();
+        ReflectionTestUtils.setField(tokenProvider, "tokenVersions", tokenVersions);
+        ReflectionTestUtils.setField(tokenProvider, "refreshTokens",
+                new RefreshTokenStore(tokenVersions, new SimpleMeterRegistry(), 3600000, 100000, 100000));
+        ReflectionTestUtils.invokeMethod(tokenProvider, "init");
+        authenticationCache = new JwtAuthenticationCache(tokenProvider, new SimpleMeterRegistry(), true, 1000);
+
+        request = new MockHttpServletRequest("GET", "/api/people/v1");
+        request.setServerName("localhost");
+        request.setServerPort(8080);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        var token = tokenProvider.createAccessToken("leandro", roles);
+        accessToken = token.getAccessToken();
+        bearerRefreshToken = "Bearer " + token.getRefreshToken();
+        request.addHeader("Authorization", "Bearer " + accessToken);
+    }
+
+    @TearDown
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Benchmark
+    public Object createAccessToken() {
+        return tokenProvider.createAccessToken("leandro", roles);
+    }
+
+    /**
+     * Refresh tokens are single-use, so each invocation exchanges the token returned by the previous one.
+     */
+    @Benchmark
+    public Object refreshToken() {
+        var token = tokenProvider.refreshToken("leandro", bearerRefreshToken);
+        bearerRefreshToken = "Bearer " + token.getRefreshToken();
+        return token;
+    }
+
+    @Benchmark
+    public boolean validateToken() throws Exception {
+        return tokenProvider.validateToken(accessToken);
+    }
+
+    @Benchmark
+    public Authentication getAuthentication() {
+        return tokenProvider.getAuthentication(accessToken);
+    }
+
+    @Benchmark
+    public String resolveToken() {
+        return tokenProvider.resolveToken(request);
+    }
+
+    /**
+     * What {@code JwtTokenFilter} did per request before the authentication cache: validate, then authenticate.
+     */
+    @Benchmark
+    public Authentication validateAndAuthenticate() throws Exception {
+        String token = tokenProvider.resolveToken(request);
+        return tokenProvider.validateToken(token) ? tokenProvider.getAuthentication(token) : null;
+    }
+
+    /**
+     * What {@code JwtTokenFilter} does per request once a token is cached: look it up straight from the header.
+     */
+    @Benchmark
+    public Authentication cachedAuthentication() {
+        String header = request.getHeader("Authorization");
+        return authenticationCache.get(header, JwtTokenProvider.bearerTokenOffset(header));
+    }
+
+    // Baselines: the per-call work JwtTokenProvider and JwtTokenFilter did before the verifier, the issuer and
+    // the header parsing were reworked, kept to compare against the methods above.
+
+    /**
+     * Compare with {@link #validateToken()}: builds the {@code Algorithm} and the {@code JWTVerifier} on every call.
+     */
+    @Benchmark
+    public boolean validateTokenBaseline() {
+        Algorithm algorithm = Algorithm.HMAC256(Base64.getEncoder().encodeToString(SECRET.getBytes()).getBytes());
+        return !JWT.require(algorithm).build().verify(accessToken).getExpiresAt().before(new Date());
+    }
+
+    /**
+     * The issuer as {@link #createAccessToken()} used to compute it for every token.
+     */
+    @Benchmark
+    public String issuerBaseline() {
+        return ServletUriComponentsBuilder.fromCurrentContextPath().build().toUriString();
+    }
+
+    /**
+     * Compare with {@link #cachedAuthentication()}: copies the token out of the header before the lookup.
+     */
+    @Benchmark
+    public Authentication cachedAuthenticationBaseline() {
+        return authenticationCache.get(tokenProvider.resolveToken(request));
+    }
+}
@@ -0,0 +1,135 @@
+package com.cristian.restapi.unittests.concurrency;
+
+import com.cristian.restapi.concurrency.AdaptiveConcurrencyLimit;
+import com.cristian.restapi.concurrency.ConcurrencyLimitFilter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrencyLimitFilterTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private AdaptiveConcurrencyLimit fileLimit;
+    private ConcurrencyLimitFilter filter;
+
+    @BeforeEach
+    public void setUp() {
+        fileLimit = new AdaptiveConcurrencyLimit(1, 1, 10, 0.2);
+        filter = new ConcurrencyLimitFilter(List.of(
+                new ConcurrencyLimitFilter.Group("file", List.of("/api/file/**"), fileLimit, 0)),
+                new ObjectMapper(), 2, meterRegistry, clock::get);
+    }
+
+    @Test
+    public void limitGrowsWhileLatencyHoldsAndShrinksWhenItRises() throws InterruptedException {
+        var limit = new AdaptiveConcurrencyLimit(10, 4, 50, 0.5);
+        saturate(limit, 200, 10);
+        int grown = limit.getLimit();
+        assertTrue(grown > 10, "limit " + grown);
+
+        saturate(limit, 50, 40);
+        assertTrue(limit.getLimit() < grown, "limit " + limit.getLimit());
+
+        saturate(limit, 200, 1000);
+        assertEquals(4, limit.getLimit());
+    }
+
+    @Test
+    public void rejectsWithServiceUnavailableOnceTheGroupIsFull() throws Exception {
+        var inside = new MockHttpServletResponse[1];
+        FilterChain upload = (request, response) -> inside[0] = call("/api/file/v1/uploadFile");
+        filter.doFilter(request("/api/file/v1/uploadFile"), new MockHttpServletResponse(), upload);
+
+        assertEquals(503, inside[0].getStatus());
+        assertEquals("2", inside[0].getHeader(HttpHeaders.RETRY_AFTER));
+        assertTrue(inside[0].getContentAsString().contains("The server is busy"));
+        assertEquals(1.0, meterRegistry.get("http.concurrency.rejected").tag("group", "file").counter().count());
+
+        assertEquals(200, call("/api/people/v1/1").getStatus());
+        assertEquals(0, fileLimit.getInFlight());
+    }
+
+    @Test
+    public void streamingResponsesKeepTheirSlotUntilTheyComplete() throws Exception {
+        var request = request("/api/file/v1/downloadFile/report.pdf");
+        request.setAsyncSupported(true);
+        FilterChain streaming = (req, res) -> request.startAsync();
+        filter.doFilter(request, new MockHttpServletResponse(), streaming);
+
+        assertEquals(1, fileLimit.getInFlight());
+        assertEquals(503, call("/api/file/v1/uploadFile").getStatus());
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        ((MockAsyncContext) request.getAsyncContext()).complete();
+        assertEquals(0, fileLimit.getInFlight());
+        assertEquals(1, meterRegistry.get("http.concurrency.limit").tag("group", "file").gauge().value());
+    }
+
+    @Test
+    public void streamedRequestsDoNotMoveTheLimit() throws Exception {
+        var limit = new AdaptiveConcurrencyLimit(10, 4, 50, 0.5);
+        var bulk = new ConcurrencyLimitFilter(List.of(
+                new ConcurrencyLimitFilter.Group("bulk", List.of("/api/*/v1/export"), limit, 0)),
+                new ObjectMapper(), 2, new SimpleMeterRegistry(), clock::get);
+        saturate(limit, 200, 10);
+        int before = limit.getLimit();
+
+        for (int i = 0; i < 50; i++) {
+            while (limit.getInFlight() < limit.getLimit() - 1) {
+                limit.tryAcquire(0);
+            }
+            var request = request("/api/people/v1/export");
+            request.setAsyncSupported(true);
+            bulk.doFilter(request, new MockHttpServletResponse(), (req, res) -> request.startAsync());
+            clock.addAndGet(TimeUnit.MINUTES.toNanos(30));
+            ((MockAsyncContext) request.getAsyncContext()).complete();
+            while (limit.getInFlight() > 0) {
+                limit.release();
+            }
+        }
+
+        assertEquals(before, limit.getLimit());
+        assertEquals(0, limit.getInFlight());
+    }
+
+    private MockHttpServletResponse call(String path) throws IOException, ServletException {
+        var response = new MockHttpServletResponse();
+        filter.doFilter(request(path), response, new MockFilterChain());
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String path) {
+        return new MockHttpServletRequest("GET", path);
+    }
+
+    /**
+     * Completes {@code requests} requests of {@code latencyMillis} each, keeping every slot of the limit taken.
+     */
+    private static void saturate(AdaptiveConcurrencyLimit limit, int requests, long latencyMillis) throws InterruptedException {
+        for (int i = 0; i < requests; i++) {
+            while (limit.tryAcquire(0)) {
+                // Fill every slot, as a busy group would.
+            }
+            limit.release(TimeUnit.MILLISECONDS.toNanos(latencyMillis));
+        }
+        while (limit.getInFlight() > 0) {
+            limit.release(TimeUnit.MILLISECONDS.toNanos(latencyMillis));
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.cristian.restapi.unittests.config;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.boot.autoconfigure.web.embedded.TomcatWebServerFactoryCustomizer;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServer;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Starts Tomcat with the {@code server} settings of {@code application.yaml} and a servlet answering with the
+ * client address it sees, which is the address the sign-in rate limit uses.
+ */
+public class ForwardedHeadersTest {
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private WebServer server;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        var environment = new StandardEnvironment();
+        new YamlPropertySourceLoader().load("application", new ClassPathResource("application.yaml"))
+                .forEach(environment.getPropertySources()::addLast);
+        var properties = Binder.get(environment).bind("server", ServerProperties.class).get();
+
+        var factory = new TomcatServletWebServerFactory(0);
+        new TomcatWebServerFactoryCustomizer(environment, properties).customize(factory);
+        server = factory.getWebServer(context -> context.addServlet("address", new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+                response.getWriter().write(request.getRemoteAddr());
+            }
+        }).addMapping("/"));
+        server.start();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    public void takesTheClientAddressFromATrustedProxy() throws Exception {
+        assertEquals("203.0.113.7", remoteAddress("203.0.113.7"));
+        assertEquals("203.0.113.7", remoteAddress("198.51.100.1, 203.0.113.7"));
+    }
+
+    @Test
+    public void keepsTheConnectionAddressWithoutForwardedHeaders() throws Exception {
+        assertEquals("127.0.0.1", remoteAddress(null));
+    }
+
+    private String remoteAddress(String forwardedFor) throws Exception {
+        var request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.getPort() + "/"));
+        if (forwardedFor != null) request.header("X-Forwarded-For", forwardedFor);
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString()).body();
+    }
+}
@@ -0,0 +1,121 @@
+package com.cristian.restapi.unittests.config;
+
+import com.cristian.restapi.config.ReplicaRoutingDataSource;
+import com.cristian.restapi.config.ReplicaRoutingDataSource.Replica;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReplicaRoutingDataSourceTest {
+
+    private SwitchableDataSource firstReplica;
+    private SwitchableDataSource secondReplica;
+    private ReplicaRoutingDataSource routing;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readOnly;
+    private TransactionTemplate readWrite;
+
+    @BeforeEach
+    public void setUp() {
+        DataSource primary = database("primary");
+        firstReplica = new SwitchableDataSource(database("replica-1"));
+        secondReplica = new SwitchableDataSource(database("replica-2"));
+        routing = new ReplicaRoutingDataSource(primary, List.of(
+                new Replica("replica-1", firstReplica, 3),
+                new Replica("replica-2", secondReplica, 1)), Duration.ofHours(1));
+
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        var transactionManager = new DataSourceTransactionManager(dataSource);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        routing.close();
+    }
+
+    @Test
+    public void writesGoToThePrimaryAndReadOnlyTransactionsToAReplica() {
+        assertEquals("primary", readWrite.execute(status -> server()));
+        assertEquals("primary", server());
+        assertTrue(readOnly.execute(status -> server()).startsWith("replica-"));
+    }
+
+    @Test
+    public void spreadsReadsByWeight() {
+        Map<String, Integer> reads = new HashMap<>();
+        for (int i = 0; i < 2000; i++) {
+            reads.merge(readOnly.execute(status -> server()), 1, Integer::sum);
+        }
+
+        assertNull(reads.get("primary"));
+        double share = reads.get("replica-1") / 2000.0;
+        assertTrue(share > 0.65 && share < 0.85, "replica-1 served " + share + " of the reads");
+    }
+
+    @Test
+    public void fallsBackWhenReplicasAreDown() {
+        firstReplica.down = true;
+        for (int i = 0; i < 20; i++) {
+            assertEquals("replica-2", readOnly.execute(status -> server()));
+        }
+        assertFalse(routing.getReplicas().get(0).isHealthy());
+
+        secondReplica.down = true;
+        assertEquals("primary", readOnly.execute(status -> server()));
+        routing.checkReplicas();
+        assertEquals("primary", readOnly.execute(status -> server()));
+
+        firstReplica.down = false;
+        routing.checkReplicas();
+        assertTrue(routing.getReplicas().get(0).isHealthy());
+        assertEquals("replica-1", readOnly.execute(status -> server()));
+    }
+
+    private String server() {
+        return jdbcTemplate.queryForObject("SELECT name FROM server", String.class);
+    }
+
+    private static DataSource database(String name) {
+        var dataSource = new SimpleDriverDataSource(new org.h2.Driver(),
+                "jdbc:h2:mem:" + name + "-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        var jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE server (name VARCHAR(20))");
+        jdbcTemplate.update("INSERT INTO server VALUES (?)", name);
+        return dataSource;
+    }
+
+    private static class SwitchableDataSource extends DelegatingDataSource {
+
+        private volatile boolean down;
+
+        SwitchableDataSource(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (down) throw new SQLException("Connection refused");
+            return super.getConnection();
+        }
+    }
+}
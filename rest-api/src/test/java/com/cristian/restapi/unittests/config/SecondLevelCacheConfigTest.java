@@ -0,0 +1,119 @@
+package com.cristian.restapi.unittests.config;
+
+import com.cristian.restapi.config.SecondLevelCacheConfig;
+import com.cristian.restapi.model.Person;
+import com.cristian.restapi.repository.PersonRepository;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.cache.CacheManager;
+import java.util.List;
+import java.util.OptionalLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the second-level cache against an in-memory H2 database. Every repository call is its own transaction, as
+ * in the services, so a second read can only be served by the cache.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(SecondLevelCacheConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.datasource.url=jdbc:h2:mem:second-level-cache;MODE=MySQL",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "hibernate-cache.regions.person.maximum-size=123"})
+public class SecondLevelCacheConfigTest {
+
+    @Autowired
+    private PersonRepository repository;
+
+    @Autowired
+    private CacheManager hibernateCacheManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Statistics statistics;
+    private Long id;
+
+    @BeforeEach
+    public void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        var person = new Person();
+        person.setFirstName("Ayrton");
+        person.setLastName("Senna");
+        person.setAddress("São Paulo");
+        person.setGender("Male");
+        person.setEnabled(true);
+        id = repository.save(person).getId();
+        entityManagerFactory.getCache().evictAll();
+        statistics.clear();
+    }
+
+    @Test
+    public void createsTheConfiguredRegions() {
+        var person = hibernateCacheManager.getCache("person");
+
+        assertNotNull(person);
+        @SuppressWarnings("unchecked")
+        var configuration = (CaffeineConfiguration<Object, Object>) person.getConfiguration(CaffeineConfiguration.class);
+        assertEquals(OptionalLong.of(123), configuration.getMaximumSize());
+        assertNotNull(hibernateCacheManager.getCache("book"));
+    }
+
+    @Test
+    public void servesASecondFindByIdFromTheCache() {
+        repository.findById(id).orElseThrow();
+        repository.findById(id).orElseThrow();
+
+        var person = statistics.getDomainDataRegionStatistics("person");
+        assertEquals(1, person.getMissCount());
+        assertEquals(1, person.getHitCount());
+        assertEquals(1, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    public void replacesTheEntryOnAnEntityUpdate() {
+        var person = repository.findById(id).orElseThrow();
+        person.setFirstName("Ayrton Senna");
+        repository.save(person);
+        statistics.clear();
+
+        assertEquals("Ayrton Senna", repository.findById(id).orElseThrow().getFirstName());
+        assertEquals(1, statistics.getDomainDataRegionStatistics("person").getHitCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    public void evictsTheRegionOnABulkUpdate() {
+        repository.findById(id).orElseThrow();
+        assertTrue(entityManagerFactory.getCache().contains(Person.class, id));
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> repository.disableAllById(List.of(id)));
+
+        assertFalse(entityManagerFactory.getCache().contains(Person.class, id));
+        assertFalse(repository.findById(id).orElseThrow().getEnabled());
+    }
+}
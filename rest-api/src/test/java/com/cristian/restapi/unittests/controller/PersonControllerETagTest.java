@@ -0,0 +1,71 @@
+package com.cristian.restapi.unittests.controller;
+
+import com.cristian.restapi.controller.PersonController;
+import com.cristian.restapi.data.vo.v1.PersonVO;
+import com.cristian.restapi.serialization.SparseFieldsetResponseBodyAdvice;
+import com.cristian.restapi.service.PersonService;
+import com.cristian.restapi.util.ETags;
+import com.cristian.restapi.util.Fieldset;
+import com.cristian.restapi.util.Tagged;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.function.Predicate;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+public class PersonControllerETagTest {
+
+    private final String etag = ETags.of("person", 1L, 3L);
+    private PersonService service;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    public void setUp() {
+        service = mock(PersonService.class);
+        when(service.findById(eq(1L), any(Fieldset.class), any(), any())).thenAnswer(invocation ->
+                invocation.<Predicate<String>>getArgument(3).test(etag)
+                        ? new Tagged<>(null, etag)
+                        : new Tagged<>(new PersonVO(1L, "Ayrton", "Senna", "São Paulo", "Male", true), etag));
+        var controller = new PersonController();
+        ReflectionTestUtils.setField(controller, "service", service);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller)
+                .setControllerAdvice(new SparseFieldsetResponseBodyAdvice())
+                .build();
+    }
+
+    @Test
+    public void answersNotModifiedWithoutABody() throws Exception {
+        mockMvc.perform(get("/api/people/v1/1").accept(MediaType.APPLICATION_JSON).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    public void sendsTheETagWithAChangedPerson() throws Exception {
+        mockMvc.perform(get("/api/people/v1/1").accept(MediaType.APPLICATION_JSON).header(HttpHeaders.IF_NONE_MATCH, "\"stale\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(jsonPath("$.firstName").value("Ayrton"));
+    }
+
+    @Test
+    public void listsInAnOrderTheETagAndThePageAgreeOn() throws Exception {
+        when(service.findAll(any(), any(), any(), any(), any())).thenReturn(new Tagged<>(null, etag));
+
+        mockMvc.perform(get("/api/people/v1").param("direction", "desc").accept(MediaType.APPLICATION_JSON));
+
+        verify(service).findAll(argThat(pageable -> pageable.getSort().equals(Sort.by(Sort.Direction.DESC, "firstName", "id"))),
+                any(), any(), any(), any());
+    }
+}
@@ -0,0 +1,159 @@
+package com.cristian.restapi.unittests.security;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.cristian.restapi.repository.UserRepository;
+import com.cristian.restapi.security.jwt.JwtAuthenticationCache;
+import com.cristian.restapi.security.jwt.JwtTokenProvider;
+import com.cristian.restapi.security.jwt.TokenVersionRegistry;
+import com.cristian.restapi.service.UserChangedEvent;
+import com.cristian.restapi.service.UserService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+public class JwtAuthenticationCacheTest {
+
+    private static final String SECRET = "53cr37";
+
+    private final AtomicInteger lookups = new AtomicInteger();
+    private SimpleMeterRegistry meterRegistry;
+    private TokenVersionRegistry tokenVersions;
+    private JwtTokenProvider tokenProvider;
+    private JwtAuthenticationCache cache;
+
+    @BeforeEach
+    public void setUp() {
+        UserDetailsService userDetailsService = username -> {
+            lookups.incrementAndGet();
+            return User.withUsername(username).password("").authorities("ADMIN").build();
+        };
+        tokenVersions = new TokenVersionRegistry();
+        tokenProvider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(tokenProvider, "secretKey", SECRET);
+        ReflectionTestUtils.setField(tokenProvider, "userDetailsService", userDetailsService);
+        ReflectionTestUtils.setField(tokenProvider, "tokenVersions", tokenVersions);
+        ReflectionTestUtils.invokeMethod(tokenProvider, "init");
+
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new JwtAuthenticationCache(tokenProvider, meterRegistry, true, 100);
+    }
+
+    @Test
+    public void reusesAuthenticationForSameToken() {
+        String token = token("leandro", 60_000);
+
+        Authentication first = cache.get(token);
+        Authentication second = cache.get(token);
+
+        assertSame(first, second);
+        assertEquals("leandro", first.getName());
+        assertEquals(1, lookups.get());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    public void verifiesEachDistinctToken() {
+        cache.get(token("leandro", 60_000));
+        cache.get(token("flavio", 60_000));
+
+        assertEquals(2, lookups.get());
+    }
+
+    @Test
+    public void rejectsExpiredTokenWithoutCaching() {
+        String token = token("leandro", -1_000);
+
+        assertThrows(JWTVerificationException.class, () -> cache.get(token));
+        assertThrows(JWTVerificationException.class, () -> cache.get(token));
+        assertEquals(0, lookups.get());
+    }
+
+    @Test
+    public void buildsAuthenticationFromClaimsWithoutLookup() {
+        ReflectionTestUtils.setField(tokenProvider, "authenticationMode", "claims");
+
+        Authentication authentication = cache.get(token("leandro", 60_000));
+
+        assertEquals("leandro", authentication.getName());
+        assertEquals("ADMIN", authentication.getAuthorities().iterator().next().getAuthority());
+        assertEquals(0, lookups.get());
+    }
+
+    @Test
+    public void rejectsCachedTokenAfterRevocation() {
+        String token = token("leandro", 60_000);
+        assertNotNull(cache.get(token));
+
+        tokenVersions.revoke("leandro");
+
+        assertNull(cache.get(token));
+        assertNotNull(cache.get(token("flavio", 60_000)));
+    }
+
+    @Test
+    public void dropsTheAuthenticationsOfAChangedUser() {
+        String leandro = token("leandro", 60_000);
+        String flavio = token("flavio", 60_000);
+        Authentication first = cache.get(leandro);
+        cache.get(flavio);
+
+        cache.onUserChanged(new UserChangedEvent("leandro"));
+
+        assertNotSame(first, cache.get(leandro));
+        cache.get(flavio);
+        assertEquals(3, lookups.get());
+
+        cache.onUserChanged(new UserChangedEvent(null));
+
+        cache.get(flavio);
+        assertEquals(4, lookups.get());
+    }
+
+    @Test
+    public void dropsTheAuthenticationsOfAUserEvictedFromUserService() {
+        var userService = new UserService(mock(UserRepository.class), event -> cache.onUserChanged((UserChangedEvent) event),
+                meterRegistry, 100, Duration.ofMinutes(10));
+        String leandro = token("leandro", 60_000);
+        String flavio = token("flavio", 60_000);
+        Authentication first = cache.get(leandro);
+        cache.get(flavio);
+
+        userService.evict("leandro");
+
+        assertNotSame(first, cache.get(leandro));
+        cache.get(flavio);
+        assertEquals(3, lookups.get());
+
+        userService.evictAll();
+
+        cache.get(flavio);
+        assertEquals(4, lookups.get());
+    }
+
+    private static String token(String username, long validity) {
+        Algorithm algorithm = Algorithm.HMAC256(Base64.getEncoder().encodeToString(SECRET.getBytes()).getBytes());
+        Date now = new Date();
+        return JWT.create()
+                .withClaim("roles", List.of("ADMIN"))
+                .withIssuedAt(now)
+                .withExpiresAt(new Date(now.getTime() + validity))
+                .withSubject(username)
+                .sign(algorithm);
+    }
+}
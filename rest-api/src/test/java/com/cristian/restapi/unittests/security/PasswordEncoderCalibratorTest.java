@@ -0,0 +1,71 @@
+package com.cristian.restapi.unittests.security;
+
+import com.cristian.restapi.security.password.PasswordEncoderCalibrator;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PasswordEncoderCalibratorTest {
+
+    private static final String SEED_HASH = "44969d9cd97704d12a77284e2c3ac1f3e26517305cea8d7556400590b3c95faa55d76e8f08c44140";
+
+    @Test
+    public void matchesUnprefixedSeedHashAndRequestsUpgrade() {
+        PasswordEncoder encoder = new PasswordEncoderCalibrator(false, Duration.ofMillis(100)).create("pbkdf2");
+
+        assertTrue(encoder.matches("admin123", SEED_HASH));
+        assertFalse(encoder.matches("wrong", SEED_HASH));
+        assertTrue(encoder.upgradeEncoding(SEED_HASH));
+        assertFalse(encoder.upgradeEncoding(encoder.encode("admin123")));
+    }
+
+    @Test
+    public void calibratedPbkdf2HashesRemainReadableAfterRecalibration() {
+        PasswordEncoder calibrated = new PasswordEncoderCalibrator(true, Duration.ofMillis(5)).create("pbkdf2");
+        String hash = calibrated.encode("admin123");
+        assertTrue(hash.startsWith("{pbkdf2-"));
+
+        PasswordEncoder legacy = new PasswordEncoderCalibrator(false, Duration.ofMillis(100)).create("pbkdf2");
+        assertTrue(legacy.matches("admin123", hash));
+        assertTrue(legacy.upgradeEncoding(hash));
+    }
+
+    @Test
+    public void calibratedEncoderOnlyUpgradesHashesBelowHalfItsCost() {
+        PasswordEncoder calibrated = new PasswordEncoderCalibrator(true, Duration.ofMillis(5)).create("pbkdf2");
+        String hash = calibrated.encode("admin123");
+        int iterations = Integer.parseInt(hash.substring("{pbkdf2-".length(), hash.indexOf('}')));
+
+        assertFalse(calibrated.upgradeEncoding(hash));
+        assertFalse(calibrated.upgradeEncoding("{pbkdf2-" + (iterations * 3 / 4) + "}" + hash.substring(hash.indexOf('}') + 1)));
+        assertFalse(calibrated.upgradeEncoding("{pbkdf2-" + (iterations * 4) + "}" + hash.substring(hash.indexOf('}') + 1)));
+        assertTrue(calibrated.upgradeEncoding("{pbkdf2-" + (iterations / 4) + "}" + hash.substring(hash.indexOf('}') + 1)));
+        assertTrue(calibrated.upgradeEncoding(SEED_HASH));
+        assertTrue(calibrated.matches("admin123", hash));
+    }
+
+    @Test
+    public void calibratedEncoderUpgradesHashesOfAnotherAlgorithm() {
+        PasswordEncoder bcrypt = new PasswordEncoderCalibrator(true, Duration.ofMillis(5)).create("bcrypt");
+        String hash = bcrypt.encode("admin123");
+
+        assertFalse(bcrypt.upgradeEncoding(hash));
+        assertTrue(bcrypt.upgradeEncoding("{bcrypt}" + new BCryptPasswordEncoder(4).encode("admin123")));
+        assertTrue(bcrypt.upgradeEncoding(new PasswordEncoderCalibrator(false, Duration.ofMillis(100)).create("pbkdf2").encode("admin123")));
+        assertTrue(bcrypt.matches("admin123", SEED_HASH));
+    }
+
+    @Test
+    public void encodesWithConfiguredAlgorithm() {
+        PasswordEncoder encoder = new PasswordEncoderCalibrator(false, Duration.ofMillis(100)).create("bcrypt");
+        String hash = encoder.encode("admin123");
+
+        assertTrue(hash.startsWith("{bcrypt}"));
+        assertTrue(encoder.matches("admin123", hash));
+        assertTrue(encoder.matches("admin123", SEED_HASH));
+    }
+}
@@ -0,0 +1,100 @@
+package com.cristian.restapi.unittests.security;
+
+import com.cristian.restapi.security.jwt.RefreshTokenStore;
+import com.cristian.restapi.security.jwt.TokenVersionRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RefreshTokenStoreTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private SimpleMeterRegistry meterRegistry;
+    private TokenVersionRegistry tokenVersions;
+    private RefreshTokenStore store;
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        tokenVersions = new TokenVersionRegistry();
+        store = new RefreshTokenStore(tokenVersions, meterRegistry, Duration.ofHours(3), 1000, 3, clock::get);
+    }
+
+    @Test
+    public void acceptsEachTokenOnce() {
+        String id = store.issue("leandro");
+
+        assertDoesNotThrow(() -> store.rotate(id, "leandro"));
+        assertThrows(BadCredentialsException.class, () -> store.rotate(id, "leandro"));
+    }
+
+    @Test
+    public void revokesAllTokensOfUserOnReuse() {
+        String id = store.issue("leandro");
+        store.rotate(id, "leandro");
+
+        assertThrows(BadCredentialsException.class, () -> store.rotate(id, "leandro"));
+
+        assertTrue(tokenVersions.isRevoked("leandro", 0));
+        assertFalse(tokenVersions.isRevoked("flavio", 0));
+        assertEquals(1.0, meterRegistry.get("jwt.refresh.reuse").counter().count());
+    }
+
+    @Test
+    public void rejectsUnknownAndForeignTokens() {
+        String id = store.issue("leandro");
+
+        assertThrows(BadCredentialsException.class, () -> store.rotate("unknown", "leandro"));
+        assertThrows(BadCredentialsException.class, () -> store.rotate(id, "flavio"));
+        assertFalse(tokenVersions.isRevoked("leandro", 0));
+        assertDoesNotThrow(() -> store.rotate(id, "leandro"), "a foreign attempt must not consume the token");
+    }
+
+    @Test
+    public void dropsTokensPastTheActiveLimit() {
+        var ids = new ArrayList<String>();
+        for (int i = 0; i < 4; i++) {
+            ids.add(store.issue("leandro"));
+        }
+
+        assertEquals(1.0, meterRegistry.get("jwt.refresh.evicted").counter().count());
+        assertEquals(3.0, meterRegistry.get("jwt.refresh.active").gauge().value());
+        long rejected = ids.stream().filter(id -> {
+            try {
+                store.rotate(id, "leandro");
+                return false;
+            } catch (BadCredentialsException e) {
+                return true;
+            }
+        }).count();
+        assertEquals(1, rejected);
+    }
+
+    @Test
+    public void rejectsExpiredTokens() {
+        String id = store.issue("leandro");
+
+        clock.addAndGet(TimeUnit.HOURS.toNanos(3) + 1);
+
+        assertThrows(BadCredentialsException.class, () -> store.rotate(id, "leandro"));
+    }
+
+    @Test
+    public void detectsReuseAcrossBloomFilterGenerations() {
+        String id = store.issue("leandro");
+        clock.addAndGet(TimeUnit.HOURS.toNanos(2));
+        store.rotate(id, "leandro");
+        clock.addAndGet(TimeUnit.HOURS.toNanos(2));
+
+        assertThrows(BadCredentialsException.class, () -> store.rotate(id, "leandro"));
+        assertTrue(tokenVersions.isRevoked("leandro", 0));
+    }
+}
@@ -0,0 +1,80 @@
+package com.cristian.restapi.unittests.security;
+
+import com.cristian.restapi.exception.TooManyRequestsException;
+import com.cristian.restapi.security.ratelimit.SigninRateLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SigninRateLimiterTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private SigninRateLimiter rateLimiter;
+
+    @BeforeEach
+    public void setUp() {
+        rateLimiter = new SigninRateLimiter(new SimpleMeterRegistry(), true,
+                2, Duration.ofMinutes(1),
+                3, Duration.ofMinutes(1),
+                Duration.ofMinutes(10), clock::get);
+    }
+
+    @Test
+    public void refusesUsernameOverCapacity() {
+        rateLimiter.acquire("leandro", "10.0.0.1");
+        rateLimiter.acquire("LEANDRO", "10.0.0.2");
+
+        var exception = assertThrows(TooManyRequestsException.class, () -> rateLimiter.acquire("leandro", "10.0.0.3"));
+        assertEquals(30, exception.getRetryAfterSeconds());
+        assertDoesNotThrow(() -> rateLimiter.acquire("flavio", "10.0.0.3"));
+    }
+
+    @Test
+    public void refusesAddressOverCapacity() {
+        rateLimiter.acquire("a", "10.0.0.1");
+        rateLimiter.acquire("b", "10.0.0.1");
+        rateLimiter.acquire("c", "10.0.0.1");
+
+        assertThrows(TooManyRequestsException.class, () -> rateLimiter.acquire("d", "10.0.0.1"));
+    }
+
+    @Test
+    public void refillsOverTime() {
+        rateLimiter.acquire("leandro", "10.0.0.1");
+        rateLimiter.acquire("leandro", "10.0.0.1");
+        assertThrows(TooManyRequestsException.class, () -> rateLimiter.acquire("leandro", "10.0.0.2"));
+
+        clock.addAndGet(Duration.ofSeconds(30).toNanos());
+
+        assertDoesNotThrow(() -> rateLimiter.acquire("leandro", "10.0.0.2"));
+    }
+
+    @Test
+    public void keepsTheAddressTokenWhenTheUsernameIsRefused() {
+        rateLimiter.acquire("leandro", "10.0.0.1");
+        rateLimiter.acquire("leandro", "10.0.0.1");
+        assertThrows(TooManyRequestsException.class, () -> rateLimiter.acquire("leandro", "10.0.0.1"));
+        assertThrows(TooManyRequestsException.class, () -> rateLimiter.acquire("leandro", "10.0.0.1"));
+
+        assertDoesNotThrow(() -> rateLimiter.acquire("flavio", "10.0.0.1"));
+        assertThrows(TooManyRequestsException.class, () -> rateLimiter.acquire("erudio", "10.0.0.1"));
+    }
+
+    @Test
+    public void chargesTheUsernameOnlyForFailedAttempts() {
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.acquire("leandro", "10.0.0." + i);
+            rateLimiter.refund("Leandro");
+        }
+        rateLimiter.refund("leandro");
+
+        rateLimiter.acquire("leandro", "10.0.0.4");
+        rateLimiter.acquire("leandro", "10.0.0.5");
+        assertThrows(TooManyRequestsException.class, () -> rateLimiter.acquire("leandro", "10.0.0.6"));
+    }
+}
@@ -0,0 +1,67 @@
+package com.cristian.restapi.unittests.serialization;
+
+import com.cristian.restapi.serialization.rows.MalformedRowException;
+import com.cristian.restapi.serialization.rows.Row;
+import com.cristian.restapi.serialization.rows.RowReader;
+import com.cristian.restapi.util.RowFormat;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RowReaderTest {
+
+    @Test
+    public void readsCsvWithQuotedLineBreaks() throws IOException {
+        var reader = reader(RowFormat.CSV, "firstName,address,enabled\r\n" +
+                "Ayrton,\"Rua A, 10\nCentro\",true\r\n" +
+                "\r\n" +
+                "\"Alain \"\"Prost\"\"\",,false\n");
+
+        assertEquals(new Row(2, Map.of("firstName", "Ayrton", "address", "Rua A, 10\nCentro", "enabled", "true")), reader.next());
+        assertEquals(new Row(5, Map.of("firstName", "Alain \"Prost\"", "enabled", "false")), reader.next());
+        assertNull(reader.next());
+    }
+
+    @Test
+    public void reportsMalformedRowsAndGoesOn() throws IOException {
+        var reader = reader(RowFormat.NDJSON, """
+                {"firstName":"Ayrton","enabled":true}
+                {"firstName":
+                
+                {"firstName":"Alain","lastName":null}
+                """);
+
+        assertEquals(new Row(1, Map.of("firstName", "Ayrton", "enabled", "true")), reader.next());
+        assertEquals(2, assertThrows(MalformedRowException.class, reader::next).getLine());
+        assertEquals(new Row(4, Map.of("firstName", "Alain")), reader.next());
+        assertNull(reader.next());
+
+        var csv = reader(RowFormat.CSV, "a,b\n1,2,3\n4,5\n");
+        assertEquals(2, assertThrows(MalformedRowException.class, csv::next).getLine());
+        assertEquals(new Row(3, Map.of("a", "4", "b", "5")), csv.next());
+    }
+
+    @Test
+    public void readsWhatTheWriterWrote() throws IOException {
+        for (RowFormat format : RowFormat.values()) {
+            var out = new ByteArrayOutputStream();
+            try (var writer = format.writer(out, List.of("id", "address"))) {
+                writer.write(1L, "Rua \"A\",\r\n10");
+            }
+            var reader = format.reader(new ByteArrayInputStream(out.toByteArray()));
+            assertEquals(Map.of("id", "1", "address", "Rua \"A\",\r\n10"), reader.next().values());
+            assertNull(reader.next());
+        }
+    }
+
+    private static RowReader reader(RowFormat format, String text) throws IOException {
+        return format.reader(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)));
+    }
+}
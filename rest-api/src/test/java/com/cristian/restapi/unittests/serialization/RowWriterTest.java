@@ -0,0 +1,52 @@
+package com.cristian.restapi.unittests.serialization;
+
+import com.cristian.restapi.util.RowFormat;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class RowWriterTest {
+
+    private static final List<String> COLUMNS = List.of("id", "name", "enabled", "date");
+
+    @Test
+    public void writesNdjson() throws IOException {
+        assertEquals("""
+                        {"id":1,"name":"Ayrton \\"Senna\\"","enabled":true,"date":"1970-01-01T00:00:00Z"}
+                        {"id":2,"name":null,"enabled":false,"date":null}
+                        """,
+                export(RowFormat.NDJSON));
+    }
+
+    @Test
+    public void writesCsv() throws IOException {
+        assertEquals("id,name,enabled,date\r\n" +
+                        "1,\"Ayrton \"\"Senna\"\"\",true,1970-01-01T00:00:00Z\r\n" +
+                        "2,,false,\r\n",
+                export(RowFormat.CSV));
+    }
+
+    @Test
+    public void quotesCsvSeparators() throws IOException {
+        var out = new ByteArrayOutputStream();
+        try (var writer = RowFormat.CSV.writer(out, List.of("address"))) {
+            writer.write("Rua A, 10\nCentro");
+        }
+        assertEquals("address\r\n\"Rua A, 10\nCentro\"\r\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    private static String export(RowFormat format) throws IOException {
+        var out = new ByteArrayOutputStream();
+        try (var writer = format.writer(out, COLUMNS)) {
+            writer.write(1L, "Ayrton \"Senna\"", true, new Date(0));
+            writer.write(2L, null, false, null);
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
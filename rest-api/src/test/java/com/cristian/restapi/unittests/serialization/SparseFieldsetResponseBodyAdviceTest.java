@@ -0,0 +1,74 @@
+package com.cristian.restapi.unittests.serialization;
+
+import com.cristian.restapi.data.vo.v1.PersonVO;
+import com.cristian.restapi.exception.InvalidRequestParameterException;
+import com.cristian.restapi.serialization.SparseFieldsetResponseBodyAdvice;
+import com.cristian.restapi.serialization.converter.YamlJackson2HttpMessageConverter;
+import com.cristian.restapi.util.Fieldset;
+import org.junit.jupiter.api.Test;
+import org.springframework.hateoas.Link;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.http.converter.xml.MappingJackson2XmlHttpMessageConverter;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.mock.http.MockHttpOutputMessage;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SparseFieldsetResponseBodyAdviceTest {
+
+    private final SparseFieldsetResponseBodyAdvice advice = new SparseFieldsetResponseBodyAdvice();
+
+    @Test
+    public void keepsOnlyTheRequestedFieldsInEveryFormat() throws IOException {
+        var json = write(new MappingJackson2HttpMessageConverter(), MediaType.APPLICATION_JSON, "GET", "firstName");
+        assertEquals("{\"id\":1,\"firstName\":\"Ayrton\"}", json);
+
+        var xml = write(new MappingJackson2XmlHttpMessageConverter(), MediaType.APPLICATION_XML, "GET", "firstName");
+        assertTrue(xml.contains("<firstName>Ayrton</firstName>"), xml);
+        assertFalse(xml.contains("lastName") || xml.contains("links"), xml);
+
+        var yaml = write(new YamlJackson2HttpMessageConverter(), MediaType.parseMediaType("application/x-yaml"), "GET", "lastName,links");
+        assertTrue(yaml.contains("lastName: \"Senna\"") && yaml.contains("links:"), yaml);
+        assertFalse(yaml.contains("firstName"), yaml);
+    }
+
+    @Test
+    public void writesEveryFieldWithoutAFieldset() throws IOException {
+        var json = write(new MappingJackson2HttpMessageConverter(), MediaType.APPLICATION_JSON, "GET", null);
+        assertTrue(json.contains("\"lastName\":\"Senna\"") && json.contains("\"links\""), json);
+
+        var put = write(new MappingJackson2HttpMessageConverter(), MediaType.APPLICATION_JSON, "PUT", "firstName");
+        assertTrue(put.contains("\"lastName\":\"Senna\""), put);
+    }
+
+    @Test
+    public void rejectsUnknownFields() {
+        var fields = Fieldset.parse("firstName, salary");
+        assertThrows(InvalidRequestParameterException.class, () -> fields.requireKnown(List.of("id", "firstName")));
+        assertEquals("firstName,links", Fieldset.parse(" firstName,,links ").requireKnown(List.of("id", "firstName")).value());
+        assertTrue(Fieldset.parse("").isAll());
+    }
+
+    private String write(AbstractJackson2HttpMessageConverter converter, MediaType mediaType, String method,
+                         String fields) throws IOException {
+        var servletRequest = new MockHttpServletRequest(method, "/api/people/v1/1");
+        if (fields != null) servletRequest.setParameter(Fieldset.PARAMETER, fields);
+        var person = new PersonVO(1L, "Ayrton", "Senna", "São Paulo", "Male", true);
+        person.add(Link.of("/api/people/v1/1"));
+
+        var body = (MappingJacksonValue) advice.beforeBodyWrite(person, null, mediaType, converter.getClass(),
+                new ServletServerHttpRequest(servletRequest), new ServletServerHttpResponse(new MockHttpServletResponse()));
+        var output = new MockHttpOutputMessage();
+        converter.write(body, mediaType, output);
+        return output.getBodyAsString();
+    }
+}
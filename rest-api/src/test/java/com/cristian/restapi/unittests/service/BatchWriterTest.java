@@ -0,0 +1,106 @@
+package com.cristian.restapi.unittests.service;
+
+import com.cristian.restapi.data.vo.v1.BatchItemResultVO;
+import com.cristian.restapi.exception.InvalidRequestParameterException;
+import com.cristian.restapi.model.Person;
+import com.cristian.restapi.repository.PersonRepository;
+import com.cristian.restapi.service.BatchWriter;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class BatchWriterTest {
+
+    private final AtomicLong ids = new AtomicLong();
+    private PersonRepository repository;
+    private BatchWriter writer;
+
+    @BeforeEach
+    public void setUp() {
+        var transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        repository = mock(PersonRepository.class);
+        when(repository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Person> people = invocation.getArgument(0);
+            if (people.stream().anyMatch(p -> p.getFirstName() == null)) {
+                throw new DataIntegrityViolationException("first_name cannot be null");
+            }
+            people.forEach(p -> p.setId(ids.incrementAndGet()));
+            return people;
+        });
+        when(repository.save(any(Person.class))).thenAnswer(invocation -> {
+            Person person = invocation.getArgument(0);
+            if (person.getFirstName() == null) throw new DataIntegrityViolationException("first_name cannot be null");
+            person.setId(ids.incrementAndGet());
+            return person;
+        });
+        writer = new BatchWriter(transactionManager, 2, 6);
+        ReflectionTestUtils.setField(writer, "entityManager", mock(EntityManager.class));
+    }
+
+    @Test
+    public void refusesBatchesOverTheItemLimit() {
+        assertThrows(InvalidRequestParameterException.class, () -> writer.saveAll(
+                Arrays.asList("a", "b", "c", "d", "e", "f", "g"), BatchWriterTest::person, repository, Person::getId));
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    public void savesInChunks() {
+        var results = writer.saveAll(Arrays.asList("a", "b", "c", "d", "e"), BatchWriterTest::person, repository, Person::getId);
+
+        verify(repository, times(3)).saveAll(anyList());
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), results.stream().map(BatchItemResultVO::getKey).toList());
+        results.forEach(result -> assertEquals(201, result.getStatus()));
+    }
+
+    @Test
+    public void failedChunkOnlyFailsTheBadItem() {
+        var results = writer.saveAll(Arrays.asList("a", "b", "", "d"), BatchWriterTest::person, repository, Person::getId);
+
+        assertEquals(List.of(201, 201, 400, 201), results.stream().map(BatchItemResultVO::getStatus).toList());
+        assertEquals(List.of(0, 1, 2, 3), results.stream().map(BatchItemResultVO::getIndex).toList());
+        assertNull(results.get(2).getKey());
+        verify(repository, times(2)).save(any(Person.class));
+    }
+
+    @Test
+    public void rejectsNullItemsWithoutFailingTheChunk() {
+        var results = writer.saveAll(Arrays.asList("a", null), BatchWriterTest::person, repository, Person::getId);
+
+        assertEquals(List.of(201, 400), results.stream().map(BatchItemResultVO::getStatus).toList());
+        verify(repository, never()).save(any(Person.class));
+    }
+
+    @Test
+    public void rejectsItemsThatFailValidation() {
+        var results = writer.saveAll(Arrays.asList("a", "b", "c"), name -> {
+            if (name.equals("b")) throw new InvalidRequestParameterException("firstName is invalid.");
+            return person(name);
+        }, repository, Person::getId);
+
+        assertEquals(List.of(201, 400, 201), results.stream().map(BatchItemResultVO::getStatus).toList());
+        assertEquals("firstName is invalid.", results.get(1).getMessage());
+        verify(repository, never()).save(any(Person.class));
+    }
+
+    private static Person person(String firstName) {
+        var person = new Person();
+        person.setFirstName(firstName.isEmpty() ? null : firstName);
+        return person;
+    }
+}
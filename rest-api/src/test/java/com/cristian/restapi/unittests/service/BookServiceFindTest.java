@@ -0,0 +1,66 @@
+package com.cristian.restapi.unittests.service;
+
+import com.cristian.restapi.data.vo.v1.BookVO;
+import com.cristian.restapi.data.vo.v1.MultiGetItemVO;
+import com.cristian.restapi.exception.InvalidRequestParameterException;
+import com.cristian.restapi.repository.BookRepository;
+import com.cristian.restapi.service.BookService;
+import com.cristian.restapi.util.Fieldset;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+public class BookServiceFindTest {
+
+    private BookRepository repository;
+    private BookService service;
+
+    @BeforeEach
+    public void setUp() {
+        repository = mock(BookRepository.class);
+        service = new BookService();
+        ReflectionTestUtils.setField(service, "repository", repository);
+        when(repository.findAllVOsById(anyCollection())).thenAnswer(invocation -> invocation.<Collection<Long>>getArgument(0).stream()
+                .filter(id -> id % 2 == 0)
+                .map(id -> new BookVO(id, "Author " + id, "Title " + id, new Date(0), 10.0))
+                .toList());
+    }
+
+    @Test
+    public void findsManyInRequestOrderWithNotFoundMarkers() {
+        var results = service.findAllById(List.of(4L, 1L, 2L, 4L), Fieldset.ALL);
+
+        verify(repository).findAllVOsById(List.of(4L, 1L, 2L));
+        assertEquals(List.of(4L, 1L, 2L, 4L), results.stream().map(MultiGetItemVO::getId).toList());
+        assertEquals(List.of(200, 404, 200, 200), results.stream().map(MultiGetItemVO::getStatus).toList());
+        assertEquals("Title 2", results.get(2).getItem().getTitle());
+        assertEquals(1, results.get(0).getItem().getLinks().toList().size());
+        assertNull(results.get(1).getItem());
+    }
+
+    @Test
+    public void readsLongIdListsInBoundedStatements() {
+        var ids = LongStream.rangeClosed(1, 2500).boxed().toList();
+
+        var results = service.findAllById(ids, Fieldset.ALL);
+
+        verify(repository, times(3)).findAllVOsById(anyCollection());
+        assertEquals(2500, results.size());
+        assertEquals(1250, results.stream().filter(result -> result.getStatus() == 200).count());
+    }
+
+    @Test
+    public void rejectsUnknownFields() {
+        assertThrows(InvalidRequestParameterException.class, () -> service.findAllById(List.of(1L), Fieldset.parse("isbn")));
+        verifyNoInteractions(repository);
+    }
+}
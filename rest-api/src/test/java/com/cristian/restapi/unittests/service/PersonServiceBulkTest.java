@@ -0,0 +1,82 @@
+package com.cristian.restapi.unittests.service;
+
+import com.cristian.restapi.exception.RequiredObjectIsNullException;
+import com.cristian.restapi.exception.ResourceNotFoundException;
+import com.cristian.restapi.model.Person;
+import com.cristian.restapi.repository.PersonRepository;
+import com.cristian.restapi.service.PersonService;
+import com.cristian.restapi.service.TotalCountCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+public class PersonServiceBulkTest {
+
+    private PersonRepository repository;
+    private TotalCountCache totalCounts;
+    private PersonService service;
+
+    @BeforeEach
+    public void setUp() {
+        repository = mock(PersonRepository.class);
+        totalCounts = new TotalCountCache(Duration.ofMinutes(5), System::nanoTime);
+        service = new PersonService();
+        ReflectionTestUtils.setField(service, "repository", repository);
+        ReflectionTestUtils.setField(service, "totalCounts", totalCounts);
+    }
+
+    @Test
+    public void deletesDistinctIdsInBoundedStatements() {
+        when(repository.deleteAllById(anyCollection())).thenAnswer(invocation -> invocation.<Collection<?>>getArgument(0).size());
+        totalCounts.get("person", () -> 5000);
+        var ids = new ArrayList<>(LongStream.rangeClosed(1, 2500).boxed().toList());
+        ids.add(1L);
+
+        var result = service.deleteAll(ids);
+
+        verify(repository, times(3)).deleteAllById(anyCollection());
+        assertEquals(2501, result.getRequested());
+        assertEquals(2500, result.getAffected());
+        assertEquals(2500, totalCounts.get("person", () -> 0));
+    }
+
+    @Test
+    public void rejectsEmptyIdList() {
+        assertThrows(RequiredObjectIsNullException.class, () -> service.disableAll(List.of()));
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    public void changesASingleRowThroughItsEntity() {
+        var person = new Person();
+        person.setId(1L);
+        person.setEnabled(true);
+        when(repository.findById(1L)).thenReturn(Optional.of(person));
+
+        service.disablePersonWithoutReadback(1L);
+        assertFalse(person.getEnabled());
+        assertThrows(ResourceNotFoundException.class, () -> service.disablePersonWithoutReadback(2L));
+        assertEquals(0, service.disableAll(List.of(1L, 1L)).getAffected());
+
+        service.delete(1L);
+        assertEquals(0, service.deleteAll(List.of(2L)).getAffected());
+
+        verify(repository).delete(person);
+        verify(repository, never()).disablePerson(anyLong());
+        verify(repository, never()).disableAllById(anyCollection());
+        verify(repository, never()).deleteAllById(anyCollection());
+    }
+}
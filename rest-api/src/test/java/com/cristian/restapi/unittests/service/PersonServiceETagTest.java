@@ -0,0 +1,126 @@
+package com.cristian.restapi.unittests.service;
+
+import com.cristian.restapi.data.vo.v1.PersonVO;
+import com.cristian.restapi.model.Person;
+import com.cristian.restapi.repository.PersonRepository;
+import com.cristian.restapi.repository.RowVersion;
+import com.cristian.restapi.repository.SparseFieldsetQueries;
+import com.cristian.restapi.service.PersonService;
+import com.cristian.restapi.service.SingleFlight;
+import com.cristian.restapi.service.TotalCountCache;
+import com.cristian.restapi.util.CountMode;
+import com.cristian.restapi.util.Fieldset;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.web.PagedResourcesAssembler;
+import org.springframework.data.web.SlicedResourcesAssembler;
+import org.springframework.hateoas.PagedModel;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class PersonServiceETagTest {
+
+    private static final String JSON = "application/json";
+
+    private final Pageable pageable = PageRequest.of(0, 12);
+    private PersonRepository repository;
+    private PersonService service;
+    private SparseFieldsetQueries sparseFieldsets;
+
+    @BeforeEach
+    public void setUp() {
+        repository = mock(PersonRepository.class);
+        service = new PersonService();
+        ReflectionTestUtils.setField(service, "repository", repository);
+        ReflectionTestUtils.setField(service, "totalCounts", new TotalCountCache(Duration.ofMinutes(5), System::nanoTime));
+        ReflectionTestUtils.setField(service, "assembler", new PagedResourcesAssembler<PersonVO>(null, null));
+        ReflectionTestUtils.setField(service, "slicedAssembler", new SlicedResourcesAssembler<PersonVO>(null, null));
+        ReflectionTestUtils.setField(service, "singleFlight", new SingleFlight(Duration.ofSeconds(5)));
+        sparseFieldsets = mock(SparseFieldsetQueries.class);
+        ReflectionTestUtils.setField(service, "sparseFieldsets", sparseFieldsets);
+
+        var row = mock(RowVersion.class);
+        when(row.getId()).thenReturn(1L);
+        when(row.getVersion()).thenReturn(3L);
+        when(repository.findSliceOfVersions(pageable)).thenReturn(new SliceImpl<>(List.of(row), pageable, false));
+        when(repository.findSliceOfVOs(pageable)).thenReturn(new SliceImpl<>(
+                List.of(new PersonVO(1L, "Ayrton", "Senna", "São Paulo", "Male", true)), pageable, false));
+        when(repository.count()).thenReturn(1L);
+    }
+
+    @Test
+    public void readsAChangedPageWithTheCountOfItsTag() {
+        var people = service.findAll(pageable, CountMode.EXACT, Fieldset.ALL, JSON, etag -> false);
+
+        assertEquals(1, ((PagedModel<?>) people.body()).getMetadata().getTotalElements());
+        assertNotNull(people.etag());
+        verify(repository, times(1)).count();
+    }
+
+    @Test
+    public void skipsThePageWhenItsTagIsCurrent() {
+        String current = service.findAll(pageable, CountMode.EXACT, Fieldset.ALL, JSON, etag -> false).etag();
+        clearInvocations(repository);
+
+        var people = service.findAll(pageable, CountMode.EXACT, Fieldset.ALL, JSON, current::equals);
+
+        assertNull(people.body());
+        assertEquals(current, people.etag());
+        verify(repository, never()).findSliceOfVOs(any());
+    }
+
+    @Test
+    public void tagsAPersonFromTheVersionItWasReadAt() {
+        var entity = new Person();
+        entity.setId(1L);
+        entity.setFirstName("Ayrton");
+        entity.setVersion(3L);
+        when(repository.findById(1L)).thenReturn(Optional.of(entity));
+
+        var found = service.findById(1L, Fieldset.ALL, JSON, etag -> false);
+
+        assertEquals("Ayrton", found.body().getFirstName());
+        assertEquals(service.etag(1L, 3L, Fieldset.ALL, JSON), found.etag());
+        verify(repository, never()).findVersionById(anyLong());
+    }
+
+    @Test
+    public void skipsMappingAPersonWhoseTagIsCurrent() {
+        var entity = mock(Person.class);
+        when(entity.getVersion()).thenReturn(3L);
+        when(repository.findById(1L)).thenReturn(Optional.of(entity));
+        String current = service.etag(1L, 3L, Fieldset.ALL, JSON);
+
+        var found = service.findById(1L, Fieldset.ALL, JSON, current::equals);
+
+        assertNull(found.body());
+        assertEquals(current, found.etag());
+        verify(entity).getVersion();
+        verifyNoMoreInteractions(entity);
+    }
+
+    @Test
+    public void skipsCopyingASparsePersonWhoseTagIsCurrent() {
+        var fields = Fieldset.parse("firstName");
+        when(repository.findVersionById(1L)).thenReturn(Optional.of(3L));
+        when(sparseFieldsets.findById(any(), eq(fields), eq(1L))).thenReturn(Optional.of(new PersonVO(1L, "Ayrton", null, null, null, null)));
+        String current = service.etag(1L, 3L, fields, JSON);
+
+        var found = service.findById(1L, fields, JSON, current::equals);
+
+        assertNull(found.body());
+        assertEquals(current, found.etag());
+        assertEquals(service.etag(1L, 3L, fields, JSON), service.findById(1L, fields, JSON, etag -> false).etag());
+    }
+}
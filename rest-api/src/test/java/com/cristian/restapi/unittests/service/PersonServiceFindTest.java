@@ -0,0 +1,105 @@
+package com.cristian.restapi.unittests.service;
+
+import com.cristian.restapi.data.vo.v1.MultiGetItemVO;
+import com.cristian.restapi.data.vo.v1.PersonVO;
+import com.cristian.restapi.model.Person;
+import com.cristian.restapi.repository.PersonRepository;
+import com.cristian.restapi.service.PersonService;
+import com.cristian.restapi.service.SingleFlight;
+import com.cristian.restapi.util.Fieldset;
+import com.cristian.restapi.util.Tagged;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+public class PersonServiceFindTest {
+
+    private static final String JSON = "application/json";
+
+    private final List<Thread> threads = new CopyOnWriteArrayList<>();
+    private final ExecutorService executor = Executors.newFixedThreadPool(2, runnable -> {
+        Thread thread = new Thread(runnable);
+        threads.add(thread);
+        return thread;
+    });
+    private PersonRepository repository;
+    private SingleFlight singleFlight;
+    private PersonService service;
+
+    @BeforeEach
+    public void setUp() {
+        repository = mock(PersonRepository.class);
+        singleFlight = new SingleFlight(Duration.ofSeconds(5));
+        service = new PersonService();
+        ReflectionTestUtils.setField(service, "repository", repository);
+        ReflectionTestUtils.setField(service, "singleFlight", singleFlight);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void callersSharingALoadEachGetTheirOwnLinkedCopy() throws Exception {
+        var entity = new Person();
+        entity.setId(1L);
+        entity.setFirstName("Ayrton");
+        entity.setVersion(3L);
+        var loading = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        when(repository.findById(1L)).thenAnswer(invocation -> {
+            loading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return Optional.of(entity);
+        });
+
+        Future<Tagged<PersonVO>> first = executor.submit(() -> service.findById(1L, Fieldset.ALL, JSON, etag -> false));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        Future<Tagged<PersonVO>> second = executor.submit(() -> service.findById(1L, Fieldset.ALL, JSON, etag -> false));
+        while (threads.size() < 2 || threads.get(1).getState() != Thread.State.TIMED_WAITING) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+
+        var one = first.get(5, TimeUnit.SECONDS).body();
+        var other = second.get(5, TimeUnit.SECONDS).body();
+        assertNotSame(one, other);
+        assertEquals("Ayrton", other.getFirstName());
+        assertEquals(1, one.getLinks().toList().size());
+        assertEquals(1, other.getLinks().toList().size());
+        verify(repository, times(1)).findById(1L);
+    }
+
+    @Test
+    public void findsManyInRequestOrderWithNotFoundMarkers() {
+        when(repository.findAllVOsById(anyCollection())).thenAnswer(invocation -> invocation.<Collection<Long>>getArgument(0).stream()
+                .filter(id -> id % 2 == 1)
+                .map(id -> new PersonVO(id, "First " + id, "Last", "Address", "Male", true))
+                .toList());
+
+        var results = service.findAllById(List.of(3L, 2L, 1L, 3L), Fieldset.ALL);
+
+        verify(repository).findAllVOsById(List.of(3L, 2L, 1L));
+        assertEquals(List.of(3L, 2L, 1L, 3L), results.stream().map(MultiGetItemVO::getId).toList());
+        assertEquals(List.of(200, 404, 200, 200), results.stream().map(MultiGetItemVO::getStatus).toList());
+        assertEquals("First 1", results.get(2).getItem().getFirstName());
+        assertNull(results.get(1).getItem());
+    }
+}
@@ -0,0 +1,95 @@
+package com.cristian.restapi.unittests.service;
+
+import com.cristian.restapi.data.vo.v1.PersonVO;
+import com.cristian.restapi.exception.PreconditionFailedException;
+import com.cristian.restapi.exception.ResourceNotFoundException;
+import com.cristian.restapi.model.Person;
+import com.cristian.restapi.repository.PersonRepository;
+import com.cristian.restapi.service.PersonService;
+import com.cristian.restapi.util.ETags;
+import com.cristian.restapi.util.Fieldset;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class PersonServiceUpdateTest {
+
+    private static final String JSON = "application/json";
+
+    private PersonRepository repository;
+    private PersonService service;
+    private Person entity;
+    private final PersonVO person = new PersonVO(7L, "Ayrton", "Senna", "São Paulo", "Male", true);
+
+    @BeforeEach
+    public void setUp() {
+        repository = mock(PersonRepository.class);
+        service = new PersonService();
+        ReflectionTestUtils.setField(service, "repository", repository);
+
+        entity = new Person();
+        entity.setId(7L);
+        entity.setFirstName("Airton");
+        entity.setEnabled(true);
+        entity.setVersion(3L);
+        when(repository.findById(7L)).thenReturn(Optional.of(entity));
+    }
+
+    @Test
+    public void updatesThroughTheManagedEntityWhenIfMatchHoldsTheCurrentTag() {
+        var current = service.etag(7L, 3L, Fieldset.ALL, JSON);
+
+        var updated = service.update(person, "\"stale\", " + current, JSON);
+
+        verify(repository).flush();
+        verify(repository, never()).save(any());
+        assertEquals("Ayrton", entity.getFirstName());
+        assertEquals("Ayrton", updated.body().getFirstName());
+        assertEquals(current, updated.etag(), "the mocked flush does not bump the version");
+    }
+
+    @Test
+    public void refusesTagsOfAnotherVersionRowOrRepresentation() {
+        for (var ifMatch : new String[]{
+                service.etag(7L, 2L, Fieldset.ALL, JSON),
+                service.etag(8L, 3L, Fieldset.ALL, JSON),
+                service.etag(7L, 3L, Fieldset.ALL, "application/xml"),
+                "W/" + service.etag(7L, 3L, Fieldset.ALL, JSON),
+                "\"3-x\""}) {
+            assertThrows(PreconditionFailedException.class, () -> service.update(person, ifMatch, JSON), ifMatch);
+        }
+        verify(repository, never()).flush();
+        assertEquals("Airton", entity.getFirstName());
+    }
+
+    @Test
+    public void reportsAConcurrentChangeAsAFailedPreconditionOnlyWithIfMatch() {
+        doThrow(new ObjectOptimisticLockingFailureException(Person.class, 7L)).when(repository).flush();
+
+        assertThrows(PreconditionFailedException.class, () -> service.update(person, "*", JSON));
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> service.update(person, null, JSON));
+    }
+
+    @Test
+    public void answersNotFoundForAnUnknownPerson() {
+        when(repository.findById(7L)).thenReturn(Optional.empty());
+        assertThrows(ResourceNotFoundException.class, () -> service.update(person, "*", JSON));
+    }
+
+    @Test
+    public void comparesIfMatchListsStrongly() {
+        var tag = ETags.of("person", 7L, 3L);
+        assertTrue(ETags.matches(tag, tag));
+        assertTrue(ETags.matches(" \"a\" ,\t" + tag, tag));
+        assertTrue(ETags.matches("*", tag));
+        assertFalse(ETags.matches("W/" + tag, tag));
+        assertFalse(ETags.matches(tag.substring(0, tag.length() - 2) + "\"", tag));
+        assertFalse(ETags.matches("\"unterminated", tag));
+    }
+}
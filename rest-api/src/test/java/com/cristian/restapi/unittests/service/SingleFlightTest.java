@@ -0,0 +1,119 @@
+package com.cristian.restapi.unittests.service;
+
+import com.cristian.restapi.exception.ResourceNotFoundException;
+import com.cristian.restapi.service.SingleFlight;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SingleFlightTest {
+
+    private static final int CALLERS = 8;
+
+    private final SingleFlight singleFlight = new SingleFlight(Duration.ofSeconds(5));
+    private final List<Thread> threads = new CopyOnWriteArrayList<>();
+    private final ExecutorService executor = Executors.newFixedThreadPool(CALLERS, runnable -> {
+        Thread thread = new Thread(runnable);
+        threads.add(thread);
+        return thread;
+    });
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void concurrentCallersShareOneLoad() throws Exception {
+        var loads = new AtomicInteger();
+        var callers = callConcurrently("person:1", () -> {
+            loads.incrementAndGet();
+            awaitRelease();
+            return "Ayrton";
+        });
+        assertEquals("other", singleFlight.load("person:2", () -> "other"));
+        release.countDown();
+
+        for (Future<String> caller : callers) {
+            assertEquals("Ayrton", caller.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, loads.get());
+        assertEquals(0, singleFlight.inFlight());
+    }
+
+    @Test
+    public void sharesFailuresAndLoadsAgainAfterwards() throws Exception {
+        var callers = callConcurrently("book:9", () -> {
+            awaitRelease();
+            throw new ResourceNotFoundException("No records found for this ID!");
+        });
+        release.countDown();
+
+        for (Future<String> caller : callers) {
+            var failure = assertThrows(ExecutionException.class, () -> caller.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(ResourceNotFoundException.class, failure.getCause());
+        }
+        assertEquals("found", singleFlight.load("book:9", () -> "found"));
+    }
+
+    @Test
+    public void waitersLoadThemselvesOnceTheSharedLoadTakesTooLong() throws Exception {
+        var impatient = new SingleFlight(Duration.ofMillis(20));
+        var loads = new AtomicInteger();
+        var leader = executor.submit(() -> impatient.load("person:1", () -> {
+            loads.incrementAndGet();
+            awaitRelease();
+            return "slow";
+        }));
+        while (impatient.inFlight() == 0) {
+            Thread.sleep(1);
+        }
+
+        assertEquals("fast", impatient.load("person:1", () -> {
+            loads.incrementAndGet();
+            return "fast";
+        }));
+        release.countDown();
+        assertEquals("slow", leader.get(5, TimeUnit.SECONDS));
+        assertEquals(2, loads.get());
+    }
+
+    /**
+     * Starts {@link #CALLERS} loads of {@code key} and returns once every caller is blocked, either in the load
+     * or waiting for it.
+     */
+    private List<Future<String>> callConcurrently(String key, Supplier<String> loader) throws InterruptedException {
+        var callers = IntStream.range(0, CALLERS)
+                .mapToObj(i -> executor.submit(() -> singleFlight.load(key, loader)))
+                .toList();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (threads.size() < CALLERS || threads.stream().anyMatch(thread -> thread.getState() == Thread.State.RUNNABLE)) {
+            assertTrue(System.nanoTime() < deadline, "callers did not block");
+            Thread.sleep(10);
+        }
+        return callers;
+    }
+
+    private void awaitRelease() {
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.cristian.restapi.unittests.service;
+
+import com.cristian.restapi.service.TotalCountCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TotalCountCacheTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicInteger queries = new AtomicInteger();
+    private TotalCountCache totalCounts;
+
+    @BeforeEach
+    public void setUp() {
+        totalCounts = new TotalCountCache(Duration.ofMinutes(5), clock::get);
+    }
+
+    @Test
+    public void countsOnceAndAppliesWrites() {
+        assertEquals(100, totalCounts.get("person", this::count));
+
+        totalCounts.add("person", 1);
+        totalCounts.add("person", 1);
+        totalCounts.add("person", -1);
+
+        assertEquals(101, totalCounts.get("person", this::count));
+        assertEquals(1, queries.get());
+    }
+
+    @Test
+    public void ignoresWritesBeforeFirstCount() {
+        totalCounts.add("person", 5);
+
+        assertEquals(100, totalCounts.get("person", this::count));
+    }
+
+    @Test
+    public void recountsWhenStale() {
+        totalCounts.get("person", this::count);
+        totalCounts.add("person", 7);
+
+        clock.addAndGet(TimeUnit.MINUTES.toNanos(5));
+
+        assertEquals(100, totalCounts.get("person", this::count));
+        assertEquals(2, queries.get());
+    }
+
+    private long count() {
+        queries.incrementAndGet();
+        return 100;
+    }
+}
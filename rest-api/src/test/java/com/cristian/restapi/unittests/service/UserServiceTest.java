@@ -0,0 +1,55 @@
+package com.cristian.restapi.unittests.service;
+
+import com.cristian.restapi.model.User;
+import com.cristian.restapi.repository.UserRepository;
+import com.cristian.restapi.service.UserService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+public class UserServiceTest {
+
+    private UserRepository repository;
+    private UserService service;
+    private User user;
+
+    @BeforeEach
+    public void setUp() {
+        repository = mock(UserRepository.class);
+        user = new User();
+        when(repository.findByUsername("leandro")).thenReturn(user);
+        service = new UserService(repository, event -> { }, new SimpleMeterRegistry(), 100, Duration.ofMinutes(10));
+    }
+
+    @Test
+    public void loadsUserOnlyOnce() {
+        assertSame(user, service.loadUserByUsername("leandro"));
+        assertSame(user, service.loadUserByUsername("leandro"));
+
+        verify(repository, times(1)).findByUsername("leandro");
+    }
+
+    @Test
+    public void reloadsUserAfterEviction() {
+        service.loadUserByUsername("leandro");
+        service.evict("leandro");
+        service.loadUserByUsername("leandro");
+
+        verify(repository, times(2)).findByUsername("leandro");
+    }
+
+    @Test
+    public void doesNotCacheUnknownUser() {
+        assertThrows(UsernameNotFoundException.class, () -> service.loadUserByUsername("nobody"));
+        assertThrows(UsernameNotFoundException.class, () -> service.loadUserByUsername("nobody"));
+
+        verify(repository, times(2)).findByUsername("nobody");
+    }
+}
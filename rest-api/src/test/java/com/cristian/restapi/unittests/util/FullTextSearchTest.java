@@ -0,0 +1,27 @@
+package com.cristian.restapi.unittests.util;
+
+import com.cristian.restapi.util.FullTextSearch;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FullTextSearchTest {
+
+    @Test
+    public void quotesTermAsPhrase() {
+        assertEquals("\"ay\"", FullTextSearch.substringPhrase("ay"));
+        assertEquals("\"ana maria\"", FullTextSearch.substringPhrase(" Ana Maria "));
+    }
+
+    @Test
+    public void dropsQuotesFromTerm() {
+        assertEquals("\"ana  -maria\"", FullTextSearch.substringPhrase("Ana\" -Maria"));
+    }
+
+    @Test
+    public void returnsNullForTermsShorterThanNgrams() {
+        assertNull(FullTextSearch.substringPhrase("a"));
+        assertNull(FullTextSearch.substringPhrase(" \" "));
+        assertNull(FullTextSearch.substringPhrase(null));
+    }
+}
@@ -0,0 +1,52 @@
+package com.cristian.restapi.unittests.util;
+
+import com.cristian.restapi.exception.InvalidRequestParameterException;
+import com.cristian.restapi.util.KeysetCursor;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KeysetCursorTest {
+
+    @Test
+    public void roundTripsSortKeyAndId() {
+        var cursor = new KeysetCursor("Ana: Maria/José", 42L);
+
+        String token = cursor.encode();
+
+        assertTrue(token.matches("[A-Za-z0-9_-]+"));
+        assertEquals(cursor, KeysetCursor.decode(token));
+    }
+
+    @Test
+    public void emptyTokenMeansFirstPage() {
+        assertNull(KeysetCursor.decode(""));
+        assertNull(KeysetCursor.decode(null));
+        assertTrue(KeysetCursor.scrollPosition(null, "firstName").isInitial());
+    }
+
+    @Test
+    public void buildsScrollPositionFromSortKeyThenId() {
+        var position = KeysetCursor.scrollPosition(new KeysetCursor("Ana", 42L), "firstName");
+
+        assertEquals(Map.of("firstName", "Ana", "id", 42L), position.getKeys());
+        assertEquals(List.of("firstName", "id"), List.copyOf(position.getKeys().keySet()));
+    }
+
+    @Test
+    public void rejectsMalformedTokens() {
+        assertThrows(InvalidRequestParameterException.class, () -> KeysetCursor.decode("not base64!"));
+        assertThrows(InvalidRequestParameterException.class, () -> KeysetCursor.decode("bm9zZXBhcmF0b3I"));
+    }
+
+    @Test
+    public void boundsThePageSize() {
+        assertDoesNotThrow(() -> KeysetCursor.requirePageSize(1));
+        assertDoesNotThrow(() -> KeysetCursor.requirePageSize(KeysetCursor.MAX_PAGE_SIZE));
+        assertThrows(InvalidRequestParameterException.class, () -> KeysetCursor.requirePageSize(0));
+        assertThrows(InvalidRequestParameterException.class, () -> KeysetCursor.requirePageSize(KeysetCursor.MAX_PAGE_SIZE + 1));
+    }
+}